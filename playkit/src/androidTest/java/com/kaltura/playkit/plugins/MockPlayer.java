@@ -3,11 +3,18 @@ package com.kaltura.playkit.plugins;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import com.kaltura.playkit.DispatchMonitor;
+import com.kaltura.playkit.EventJournal;
+import com.kaltura.playkit.MessageBus;
+import com.kaltura.playkit.PKBufferProfile;
 import com.kaltura.playkit.PKEvent;
 import com.kaltura.playkit.PKMediaConfig;
 import com.kaltura.playkit.PKRequestParams;
 import com.kaltura.playkit.Player;
+import com.kaltura.playkit.PlayerSnapshot;
+import com.kaltura.playkit.QosMetrics;
 import com.kaltura.playkit.ads.AdController;
+import com.kaltura.playkit.player.MediaSegmentCache;
 import com.kaltura.playkit.player.PlayerView;
 
 /**
@@ -37,6 +44,51 @@ public class MockPlayer implements Player {
             public Settings useTextureView(boolean useTextureView) {
                 return this;
             }
+
+            @Override
+            public Settings setEventDispatchMode(MessageBus.DispatchMode dispatchMode) {
+                return this;
+            }
+
+            @Override
+            public Settings setEventCoalescing(Enum eventType, long windowMs) {
+                return this;
+            }
+
+            @Override
+            public Settings setDispatchMonitor(DispatchMonitor dispatchMonitor) {
+                return this;
+            }
+
+            @Override
+            public Settings setEventJournal(EventJournal eventJournal) {
+                return this;
+            }
+
+            @Override
+            public Settings setBufferProfile(PKBufferProfile bufferProfile) {
+                return this;
+            }
+
+            @Override
+            public Settings setSegmentCache(MediaSegmentCache segmentCache) {
+                return this;
+            }
+
+            @Override
+            public Settings setBackgroundGracePeriod(long gracePeriodMs) {
+                return this;
+            }
+
+            @Override
+            public Settings setLiveLatencyTarget(long targetOffsetMs, long maxDriftMs) {
+                return this;
+            }
+
+            @Override
+            public Settings setQosReportInterval(long intervalMs) {
+                return this;
+            }
         };
     }
 
@@ -51,13 +103,18 @@ public class MockPlayer implements Player {
     }
 
     @Override
-    public void updatePluginConfig(@NonNull String pluginName, @Nullable Object pluginConfig) {
+    public void prefetchManifest(@NonNull PKMediaConfig mediaConfig) {
 
     }
 
     @Override
-    public void skip() {
+    public void updatePluginConfig(@NonNull String pluginName, @Nullable Object pluginConfig) {
+
+    }
 
+    @Override
+    public boolean skip() {
+        return false;
     }
 
     @Override
@@ -115,6 +172,16 @@ public class MockPlayer implements Player {
         return 0;
     }
 
+    @Override
+    public PlayerSnapshot getSnapshot() {
+        return PlayerSnapshot.EMPTY;
+    }
+
+    @Override
+    public QosMetrics getQosMetrics() {
+        return null;
+    }
+
     @Override
     public void setVolume(float volume) {
 
@@ -145,6 +212,11 @@ public class MockPlayer implements Player {
         currentPosition = position;
     }
 
+    @Override
+    public void setScrubbing(boolean scrubbing) {
+
+    }
+
     @Override
     public AdController getAdController() {
         return null;
@@ -0,0 +1,96 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit;
+
+/**
+ * Events that report on the SDK itself rather than on playback.
+ */
+public class DiagnosticEvent implements PKEvent {
+
+    public enum Type {
+        SLOW_LISTENER, // Sent when an event listener took longer than the budget of the DispatchMonitor.
+        STARTUP_METRICS, // Sent once per media, when its StartupTracer completes.
+        LIVE_LATENCY // Sent periodically during live playback when a live latency target is set.
+    }
+
+    public static class SlowListener extends DiagnosticEvent {
+
+        public final String listenerName;
+        public final Enum listenedEventType;
+        public final MessageBus.Lane lane;
+        public final long durationMicros;
+        public final long budgetMicros;
+
+        public SlowListener(String listenerName, Enum listenedEventType, MessageBus.Lane lane, long durationMicros, long budgetMicros) {
+            super(Type.SLOW_LISTENER);
+            this.listenerName = listenerName;
+            this.listenedEventType = listenedEventType;
+            this.lane = lane;
+            this.durationMicros = durationMicros;
+            this.budgetMicros = budgetMicros;
+        }
+    }
+
+    public static class StartupMetrics extends DiagnosticEvent {
+
+        private final long[] durationsMs;
+        public final long totalMs;
+
+        StartupMetrics(long[] durationsMs, long totalMs) {
+            super(Type.STARTUP_METRICS);
+            this.durationsMs = durationsMs;
+            this.totalMs = totalMs;
+        }
+
+        /**
+         * @return how long the phase took in milliseconds, or {@link StartupTracer#NOT_MEASURED}.
+         */
+        public long getDurationMs(StartupTracer.Phase phase) {
+            return durationsMs[phase.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("StartupMetrics{total=").append(totalMs);
+            for (StartupTracer.Phase phase : StartupTracer.Phase.values()) {
+                sb.append(", ").append(phase).append('=').append(getDurationMs(phase));
+            }
+            return sb.append('}').toString();
+        }
+    }
+
+    public static class LiveLatency extends DiagnosticEvent {
+
+        public final long latencyMs;        // Distance from the live edge.
+        public final long targetOffsetMs;
+        public final float playbackSpeed;   // Above 1 while catching up, below 1 while falling back.
+
+        public LiveLatency(long latencyMs, long targetOffsetMs, float playbackSpeed) {
+            super(Type.LIVE_LATENCY);
+            this.latencyMs = latencyMs;
+            this.targetOffsetMs = targetOffsetMs;
+            this.playbackSpeed = playbackSpeed;
+        }
+    }
+
+    public final Type type;
+
+    public DiagnosticEvent(Type type) {
+        this.type = type;
+    }
+
+    @Override
+    public Enum eventType() {
+        return this.type;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures how long each listener spends handling each event type.
+ * Install it with {@link Player.Settings#setDispatchMonitor(DispatchMonitor)} and read the numbers with
+ * {@link #getStats()}. When a listener call exceeds the budget, a {@link DiagnosticEvent.SlowListener}
+ * event is posted.
+ * Stats are kept per listener class, so instances of the same class share an entry and the monitor
+ * doesn't keep removed listeners (and whatever they reference) alive.
+ */
+public class DispatchMonitor {
+
+    /**
+     * Upper bounds (exclusive) of the latency histogram buckets, in microseconds.
+     * The last bucket of {@link ListenerStats#histogram} counts everything above the last bound.
+     */
+    public static final long[] HISTOGRAM_BOUNDS_MICROS = {100, 250, 500, 1000, 2000, 4000, 8000, 16000, 32000};
+
+    public static final long DEFAULT_BUDGET_MS = 4;
+
+    /**
+     * Call count and latency of one listener class for one event type.
+     */
+    public static class ListenerStats {
+        public final String listenerName;
+        public final Enum eventType;
+        public long count;
+        public long totalMicros;
+        public long maxMicros;
+        public long overBudgetCount;
+        public final long[] histogram = new long[HISTOGRAM_BOUNDS_MICROS.length + 1];
+
+        ListenerStats(String listenerName, Enum eventType) {
+            this.listenerName = listenerName;
+            this.eventType = eventType;
+        }
+
+        ListenerStats copy() {
+            ListenerStats copy = new ListenerStats(listenerName, eventType);
+            copy.count = count;
+            copy.totalMicros = totalMicros;
+            copy.maxMicros = maxMicros;
+            copy.overBudgetCount = overBudgetCount;
+            System.arraycopy(histogram, 0, copy.histogram, 0, histogram.length);
+            return copy;
+        }
+
+        public long getAverageMicros() {
+            return count > 0 ? totalMicros / count : 0;
+        }
+
+        @Override
+        public String toString() {
+            return listenerName + " / " + eventType + ": count=" + count + " avg=" + getAverageMicros() + "us max=" + maxMicros +
+                    "us overBudget=" + overBudgetCount + " histogram=" + Arrays.toString(histogram);
+        }
+    }
+
+    private final long budgetMicros;
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Enum, ListenerStats>> stats = new ConcurrentHashMap<>();
+
+    public DispatchMonitor() {
+        this(DEFAULT_BUDGET_MS);
+    }
+
+    /**
+     * @param budgetMs - the time a single listener call may take before it's reported as slow.
+     */
+    public DispatchMonitor(long budgetMs) {
+        this.budgetMicros = budgetMs * 1000;
+    }
+
+    public long getBudgetMicros() {
+        return budgetMicros;
+    }
+
+    /**
+     * Record one listener call.
+     * @return - true if the call went over the budget.
+     */
+    boolean record(PKEvent.Listener listener, Enum eventType, long durationNanos) {
+        long durationMicros = durationNanos / 1000;
+
+        String listenerName = listener.getClass().getName();
+        ConcurrentHashMap<Enum, ListenerStats> listenerStats = stats.get(listenerName);
+        if (listenerStats == null) {
+            ConcurrentHashMap<Enum, ListenerStats> created = new ConcurrentHashMap<>();
+            listenerStats = stats.putIfAbsent(listenerName, created);
+            if (listenerStats == null) {
+                listenerStats = created;
+            }
+        }
+        ListenerStats entry = listenerStats.get(eventType);
+        if (entry == null) {
+            ListenerStats created = new ListenerStats(listenerName, eventType);
+            entry = listenerStats.putIfAbsent(eventType, created);
+            if (entry == null) {
+                entry = created;
+            }
+        }
+
+        boolean overBudget = durationMicros > budgetMicros;
+        synchronized (entry) {
+            entry.count++;
+            entry.totalMicros += durationMicros;
+            entry.maxMicros = Math.max(entry.maxMicros, durationMicros);
+            entry.histogram[bucketOf(durationMicros)]++;
+            if (overBudget) {
+                entry.overBudgetCount++;
+            }
+        }
+        return overBudget;
+    }
+
+    private static int bucketOf(long durationMicros) {
+        for (int i = 0; i < HISTOGRAM_BOUNDS_MICROS.length; i++) {
+            if (durationMicros < HISTOGRAM_BOUNDS_MICROS[i]) {
+                return i;
+            }
+        }
+        return HISTOGRAM_BOUNDS_MICROS.length;
+    }
+
+    /**
+     * @return - a copy of the collected stats, one entry per listener class and event type.
+     */
+    public List<ListenerStats> getStats() {
+        List<ListenerStats> result = new ArrayList<>();
+        for (ConcurrentHashMap<Enum, ListenerStats> listenerStats : stats.values()) {
+            for (ListenerStats entry : listenerStats.values()) {
+                synchronized (entry) {
+                    result.add(entry.copy());
+                }
+            }
+        }
+        return result;
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+}
@@ -0,0 +1,403 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in recorder of everything that passes through a {@link MessageBus}, plus the calls made on the
+ * {@link Player}. Records are kept in a fixed-size binary ring buffer (oldest records are overwritten)
+ * with a monotonic timestamp, can be dumped to a file, and replayed into another MessageBus.
+ *
+ * Event payloads are kept for the common player events (state, duration, volume, playback info, error);
+ * other events are replayed with their type only, as {@link PlayerEvent.Generic} or {@link ReplayedEvent}.
+ */
+public class EventJournal {
+
+    private static final PKLog log = PKLog.get("EventJournal");
+
+    public static final int DEFAULT_CAPACITY_BYTES = 256 * 1024;
+
+    private static final int MAGIC = 0x504b4a31; // "PKJ1"
+    private static final int MAX_RECORD_SIZE = 1024;
+    private static final int MAX_STRING_BYTES = 256;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte KIND_EVENT = 1;
+    private static final byte KIND_PLAYER_CALL = 2;
+
+    private static final byte PAYLOAD_NONE = 0;
+    private static final byte PAYLOAD_STATE = 1;
+    private static final byte PAYLOAD_DURATION = 2;
+    private static final byte PAYLOAD_VOLUME = 3;
+    private static final byte PAYLOAD_PLAYBACK_INFO = 4;
+    private static final byte PAYLOAD_ERROR = 5;
+
+    /**
+     * A replayed event whose original class is not reconstructed. It reports the original event type.
+     */
+    public static class ReplayedEvent implements PKEvent {
+        public final Enum type;
+        public final long timestampNanos;
+
+        ReplayedEvent(Enum type, long timestampNanos) {
+            this.type = type;
+            this.timestampNanos = timestampNanos;
+        }
+
+        @Override
+        public Enum eventType() {
+            return type;
+        }
+    }
+
+    /**
+     * A recorded call on the {@link Player}, posted when a journal is replayed.
+     */
+    public static class PlayerCall implements PKEvent {
+
+        public enum Type {
+            PLAYER_CALL
+        }
+
+        public final String method;
+        public final String argument;
+        public final long timestampNanos;
+
+        PlayerCall(String method, String argument, long timestampNanos) {
+            this.method = method;
+            this.argument = argument;
+            this.timestampNanos = timestampNanos;
+        }
+
+        @Override
+        public Enum eventType() {
+            return Type.PLAYER_CALL;
+        }
+
+        @Override
+        public String toString() {
+            return method + "(" + (argument != null ? argument : "") + ")";
+        }
+    }
+
+    private final byte[] buffer;
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_RECORD_SIZE);
+    private int head;   // next write position
+    private int size;   // bytes in use
+    private int recordCount;
+
+    // Enum classes are written as an index into this dictionary, which lives outside of the ring.
+    private final Map<Class<?>, Integer> classIds = new HashMap<>();
+    private final List<String> classNames = new ArrayList<>();
+
+    public EventJournal() {
+        this(DEFAULT_CAPACITY_BYTES);
+    }
+
+    /**
+     * @param capacityBytes - the size of the ring buffer.
+     */
+    public EventJournal(int capacityBytes) {
+        Assert.checkArgument(capacityBytes >= MAX_RECORD_SIZE, "capacityBytes must be at least " + MAX_RECORD_SIZE);
+        this.buffer = new byte[capacityBytes];
+    }
+
+    synchronized void recordEvent(PKEvent event) {
+        scratch.clear();
+        scratch.put(KIND_EVENT);
+        scratch.putLong(System.nanoTime());
+        putEnum(event.eventType());
+
+        if (event instanceof PlayerEvent.StateChanged) {
+            PlayerEvent.StateChanged stateChanged = (PlayerEvent.StateChanged) event;
+            scratch.put(PAYLOAD_STATE);
+            scratch.putShort((short) stateChanged.newState.ordinal());
+            scratch.putShort((short) stateChanged.oldState.ordinal());
+        } else if (event instanceof PlayerEvent.DurationChanged) {
+            scratch.put(PAYLOAD_DURATION);
+            scratch.putLong(((PlayerEvent.DurationChanged) event).duration);
+        } else if (event instanceof PlayerEvent.VolumeChanged) {
+            scratch.put(PAYLOAD_VOLUME);
+            scratch.putFloat(((PlayerEvent.VolumeChanged) event).volume);
+        } else if (event instanceof PlayerEvent.PlaybackInfoUpdated) {
+            PlaybackInfo playbackInfo = ((PlayerEvent.PlaybackInfoUpdated) event).playbackInfo;
+            scratch.put(PAYLOAD_PLAYBACK_INFO);
+            scratch.putLong(playbackInfo.getVideoBitrate());
+            scratch.putLong(playbackInfo.getAudioBitrate());
+            scratch.putLong(playbackInfo.getVideoThroughput());
+            scratch.putLong(playbackInfo.getVideoWidth());
+            scratch.putLong(playbackInfo.getVideoHeight());
+            scratch.put((byte) (playbackInfo.getIsLiveStream() ? 1 : 0));
+        } else if (event instanceof PlayerEvent.Error) {
+            PKError error = ((PlayerEvent.Error) event).error;
+            scratch.put(PAYLOAD_ERROR);
+            putEnum(error.errorType);
+            putString(error.message);
+        } else {
+            scratch.put(PAYLOAD_NONE);
+        }
+
+        commitRecord();
+    }
+
+    synchronized void recordPlayerCall(String method, Object argument) {
+        scratch.clear();
+        scratch.put(KIND_PLAYER_CALL);
+        scratch.putLong(System.nanoTime());
+        putString(method);
+        putString(argument != null ? String.valueOf(argument) : null);
+        commitRecord();
+    }
+
+    private void putEnum(Enum value) {
+        Class<?> enumClass = value.getDeclaringClass();
+        Integer classId = classIds.get(enumClass);
+        if (classId == null) {
+            classId = classNames.size();
+            classIds.put(enumClass, classId);
+            classNames.add(enumClass.getName());
+        }
+        scratch.putShort(classId.shortValue());
+        scratch.putShort((short) value.ordinal());
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            scratch.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF8);
+        int length = Math.min(bytes.length, MAX_STRING_BYTES);
+        scratch.putShort((short) length);
+        scratch.put(bytes, 0, length);
+    }
+
+    // Copy the scratch record into the ring, evicting the oldest records as needed.
+    private void commitRecord() {
+        int length = scratch.position();
+        while (buffer.length - size < length + 4) {
+            int tail = (head - size + buffer.length) % buffer.length;
+            size -= 4 + readInt(tail);
+            recordCount--;
+        }
+
+        writeInt(head, length);
+        int start = (head + 4) % buffer.length;
+        int firstPart = Math.min(length, buffer.length - start);
+        System.arraycopy(scratch.array(), 0, buffer, start, firstPart);
+        System.arraycopy(scratch.array(), firstPart, buffer, 0, length - firstPart);
+
+        head = (start + length) % buffer.length;
+        size += 4 + length;
+        recordCount++;
+    }
+
+    private int readInt(int position) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (buffer[(position + i) % buffer.length] & 0xff);
+        }
+        return value;
+    }
+
+    private void writeInt(int position, int value) {
+        for (int i = 0; i < 4; i++) {
+            buffer[(position + i) % buffer.length] = (byte) (value >>> (24 - 8 * i));
+        }
+    }
+
+    public synchronized int getRecordCount() {
+        return recordCount;
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+        recordCount = 0;
+    }
+
+    /**
+     * Write the journal, oldest record first, to the given file.
+     */
+    public void dump(File file) throws IOException {
+        OutputStream outputStream = new FileOutputStream(file);
+        try {
+            dump(outputStream);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    public void dump(OutputStream outputStream) throws IOException {
+        byte[] records;
+        List<String> names;
+        int count;
+        synchronized (this) {
+            records = new byte[size];
+            int tail = (head - size + buffer.length) % buffer.length;
+            int firstPart = Math.min(size, buffer.length - tail);
+            System.arraycopy(buffer, tail, records, 0, firstPart);
+            System.arraycopy(buffer, 0, records, firstPart, size - firstPart);
+            names = new ArrayList<>(classNames);
+            count = recordCount;
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeInt(names.size());
+        for (String name : names) {
+            out.writeUTF(name);
+        }
+        out.writeInt(count);
+        out.write(records);
+        out.flush();
+    }
+
+    /**
+     * Post the events of a dumped journal into the given MessageBus, and its player calls as {@link PlayerCall} events.
+     * If preserveTiming is true, this method sleeps between records to keep their original spacing, so it
+     * should not be called on the main thread.
+     * @return - the number of records replayed.
+     */
+    public static int replay(File file, MessageBus messageBus, boolean preserveTiming) throws IOException {
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            return replay(inputStream, messageBus, preserveTiming);
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    public static int replay(InputStream inputStream, MessageBus messageBus, boolean preserveTiming) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an event journal");
+        }
+        int nameCount = in.readInt();
+        Class<?>[] classes = new Class<?>[nameCount];
+        for (int i = 0; i < nameCount; i++) {
+            String name = in.readUTF();
+            try {
+                classes[i] = Class.forName(name);
+            } catch (ClassNotFoundException e) {
+                log.w("Unknown event class " + name + ", its events will be skipped");
+            }
+        }
+
+        int count = in.readInt();
+        int replayed = 0;
+        long firstTimestamp = 0;
+        long replayStart = System.nanoTime();
+        byte[] record = new byte[MAX_RECORD_SIZE];
+        for (int i = 0; i < count; i++) {
+            int length = in.readInt();
+            in.readFully(record, 0, length);
+            ByteBuffer data = ByteBuffer.wrap(record, 0, length);
+
+            byte kind = data.get();
+            long timestamp = data.getLong();
+            if (i == 0) {
+                firstTimestamp = timestamp;
+            }
+
+            PKEvent event = kind == KIND_PLAYER_CALL ?
+                    new PlayerCall(getString(data), getString(data), timestamp) : readEvent(data, classes, timestamp);
+            if (event == null) {
+                continue;
+            }
+
+            if (preserveTiming) {
+                long delayNanos = (timestamp - firstTimestamp) - (System.nanoTime() - replayStart);
+                if (delayNanos > 0) {
+                    try {
+                        Thread.sleep(delayNanos / 1000000, (int) (delayNanos % 1000000));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return replayed;
+                    }
+                }
+            }
+            messageBus.post(event);
+            replayed++;
+        }
+        return replayed;
+    }
+
+    private static PKEvent readEvent(ByteBuffer data, Class<?>[] classes, long timestamp) {
+        Enum type = getEnum(data, classes);
+        byte payload = data.get();
+        if (type == null) {
+            return null;
+        }
+
+        switch (payload) {
+            case PAYLOAD_STATE:
+                PlayerState[] states = PlayerState.values();
+                PlayerState newState = states[data.getShort()];
+                return new PlayerEvent.StateChanged(newState, states[data.getShort()]);
+            case PAYLOAD_DURATION:
+                return new PlayerEvent.DurationChanged(data.getLong());
+            case PAYLOAD_VOLUME:
+                return new PlayerEvent.VolumeChanged(data.getFloat());
+            case PAYLOAD_PLAYBACK_INFO:
+                return new PlayerEvent.PlaybackInfoUpdated(new PlaybackInfo(null, data.getLong(), data.getLong(), data.getLong(),
+                        data.getLong(), data.getLong(), data.get() != 0));
+            case PAYLOAD_ERROR:
+                Enum errorType = getEnum(data, classes);
+                String message = getString(data);
+                return errorType != null ? new PlayerEvent.Error(new PKError(errorType, message, null)) : null;
+            default:
+                if (type instanceof PlayerEvent.Type) {
+                    return new PlayerEvent.Generic((PlayerEvent.Type) type);
+                }
+                return new ReplayedEvent(type, timestamp);
+        }
+    }
+
+    private static Enum getEnum(ByteBuffer data, Class<?>[] classes) {
+        int classId = data.getShort();
+        int ordinal = data.getShort();
+        Class<?> enumClass = classId < classes.length ? classes[classId] : null;
+        if (enumClass == null || !enumClass.isEnum()) {
+            return null;
+        }
+        Object[] constants = enumClass.getEnumConstants();
+        return ordinal < constants.length ? (Enum) constants[ordinal] : null;
+    }
+
+    private static String getString(ByteBuffer data) {
+        int length = data.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.get(bytes);
+        return new String(bytes, UTF8);
+    }
+}
@@ -13,9 +13,21 @@
 package com.kaltura.playkit;
 
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.Message;
+import android.os.Process;
+import android.os.SystemClock;
+import android.view.Choreographer;
 
-import java.util.HashSet;
+import com.kaltura.playkit.utils.Consts;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -25,48 +37,823 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @SuppressWarnings("WeakerAccess")
 public class MessageBus {
-    private Handler postHandler = new Handler(Looper.getMainLooper());
-    private Map<Object, Set<PKEvent.Listener>> listeners;
-    
+
+    private static final PKLog log = PKLog.get("MessageBus");
+
+    /**
+     * Decides how posted events are handed over to the main looper.
+     */
+    public enum DispatchMode {
+        /**
+         * Every posted event is delivered in its own looper message. This is the default.
+         */
+        IMMEDIATE,
+        /**
+         * Events posted until the main looper gets to them are delivered together, in a single looper message.
+         */
+        BATCHED,
+        /**
+         * Events are gathered until the next display frame and delivered together in the frame callback.
+         * Delivery may be delayed by up to one frame.
+         */
+        FRAME
+    }
+
+    /**
+     * What to do with events of a type when the main-thread queue is full, see {@link #setQueueCapacity(int)}.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Keep the event even if the queue grows past its capacity. This is the default for every type.
+         */
+        NEVER_DROP,
+        /**
+         * Make room by dropping the oldest queued event of a DROP_OLDEST type. Fits telemetry, where
+         * only the recent samples matter.
+         */
+        DROP_OLDEST
+    }
+
+    /**
+     * The thread on which a listener receives its events. Within a lane, events are delivered in posting order.
+     */
+    public enum Lane {
+        /**
+         * The main (UI) thread. This is the default.
+         */
+        MAIN,
+        /**
+         * A background thread shared by all players. Use it for analytics, logging and other work that
+         * doesn't touch the UI.
+         */
+        BACKGROUND,
+        /**
+         * The thread that posted the event, synchronously inside {@link #post(PKEvent)}.
+         * Listeners on this lane receive every event, also of coalesced types.
+         */
+        POSTING
+    }
+
+    /**
+     * Decides, per event, whether a listener gets it. Evaluated on the delivery lane right before the listener
+     * would be called, so it should be cheap and must not block.
+     */
+    public interface Filter {
+        boolean accept(PKEvent event);
+    }
+
+    /**
+     * Optional delivery settings for a listener, see {@link #listen(PKEvent.Listener, ListenOptions, Enum[])}.
+     */
+    public static class ListenOptions {
+        private boolean everySample;
+        private Lane lane = Lane.MAIN;
+        private Filter filter;
+
+        /**
+         * Receive every event of a coalesced type, instead of only the latest one in each window.
+         * Has no effect on types that are not coalesced. See {@link #setCoalescing(Enum, long)}.
+         * @param everySample - true to opt out of coalescing.
+         * @return - the options.
+         */
+        public ListenOptions setEverySample(boolean everySample) {
+            this.everySample = everySample;
+            return this;
+        }
+
+        /**
+         * Set the thread on which the listener is called. Default is {@link Lane#MAIN}.
+         * @param lane - the delivery lane.
+         * @return - the options.
+         */
+        public ListenOptions setLane(Lane lane) {
+            this.lane = lane != null ? lane : Lane.MAIN;
+            return this;
+        }
+
+        /**
+         * Only deliver the events that the filter accepts. Use it to skip events by payload, for example
+         * state changes to a state the listener doesn't care about.
+         * @param filter - the filter, or null to receive every event of the listened types.
+         * @return - the options.
+         */
+        public ListenOptions setFilter(Filter filter) {
+            this.filter = filter;
+            return this;
+        }
+    }
+
+    private static final class Subscriber {
+        final PKEvent.Listener listener;
+        final boolean everySample;
+        final Lane lane;
+        final Filter filter;
+        // Types whose sticky replay is on its way. A live event of the type cancels the replay.
+        final Set<Enum> pendingReplays = Collections.newSetFromMap(new ConcurrentHashMap<Enum, Boolean>());
+
+        Subscriber(PKEvent.Listener listener, ListenOptions options) {
+            this.listener = listener;
+            this.everySample = options != null && options.everySample;
+            this.lane = options != null ? options.lane : Lane.MAIN;
+            this.filter = options != null ? options.filter : null;
+        }
+    }
+
+    // Holds the latest pending event of a coalesced type. Guarded by its own monitor.
+    private static final class Coalescer {
+        final long windowMs;
+        PKEvent latest;
+        long lastDeliveryTime = Long.MIN_VALUE / 2;
+
+        Coalescer(long windowMs) {
+            this.windowMs = windowMs;
+        }
+    }
+
+    private static final class StickyDelivery {
+        final Subscriber subscriber;
+        final PKEvent event;
+
+        StickyDelivery(Subscriber subscriber, PKEvent event) {
+            this.subscriber = subscriber;
+            this.event = event;
+        }
+    }
+
+    private static final int MSG_DISPATCH_NEXT = 1;
+    private static final int MSG_DRAIN = 2;
+    private static final int MSG_SCHEDULE_FRAME = 3;
+    private static final int MSG_FLUSH_COALESCED = 4;
+    private static final int MSG_DISPATCH_BACKGROUND = 5;
+    private static final int MSG_DELIVER_STICKY = 6;
+
+    // Who receives an event on a given delivery path.
+    private static final int DELIVER_ALL = 0;
+    private static final int DELIVER_EVERY_SAMPLE = 1;
+    private static final int DELIVER_COALESCED = 2;
+
+    private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+
+    private static HandlerThread backgroundThread;
+
+    private final Object registryLock = new Object();
+    private final Object queueLock = new Object();
+
+    // Immutable snapshot, replaced as a whole by listen()/remove(). Maps the enum class of an event type
+    // to a table indexed by the type's ordinal; each slot holds the subscribers of that type (or null).
+    private volatile Map<Class<?>, Subscriber[][]> registry = Collections.emptyMap();
+
+    private final Map<Enum, Coalescer> coalescers = new ConcurrentHashMap<>();
+
+    private final Set<Enum> stickyTypes = Collections.newSetFromMap(new ConcurrentHashMap<Enum, Boolean>());
+    private final Map<Enum, PKEvent> stickyEvents = new ConcurrentHashMap<>();
+
+    // Events waiting for delivery, in posting order. Guarded by queueLock.
+    private final ArrayDeque<PKEvent> pendingEvents = new ArrayDeque<>();
+    private boolean drainScheduled;
+    private int queueCapacity = Consts.DEFAULT_EVENT_QUEUE_CAPACITY;
+    private final Map<Enum, OverflowPolicy> overflowPolicies = new HashMap<>();
+    private final Map<Enum, long[]> droppedCounts = new HashMap<>();
+    private long droppedTotal;
+    private boolean overflowing;
+    private volatile DispatchMode dispatchMode = DispatchMode.IMMEDIATE;
+    private volatile DispatchMonitor dispatchMonitor;
+    private volatile EventJournal eventJournal;
+
+    private Handler postHandler = new Handler(Looper.getMainLooper(), new Handler.Callback() {
+        @Override
+        public boolean handleMessage(Message msg) {
+            switch (msg.what) {
+                case MSG_DISPATCH_NEXT:
+                    dispatchNext();
+                    break;
+                case MSG_DRAIN:
+                    drain();
+                    break;
+                case MSG_SCHEDULE_FRAME:
+                    Choreographer.getInstance().postFrameCallback(frameCallback);
+                    break;
+                case MSG_FLUSH_COALESCED:
+                    flushCoalesced((Coalescer) msg.obj);
+                    break;
+                case MSG_DELIVER_STICKY:
+                    deliverSticky((StickyDelivery) msg.obj);
+                    break;
+            }
+            return true;
+        }
+    });
+
+    // Created with the first BACKGROUND subscriber, before it's published in the registry.
+    private volatile Handler backgroundHandler;
+
+    private Handler.Callback backgroundCallback = new Handler.Callback() {
+        @Override
+        public boolean handleMessage(Message msg) {
+            if (msg.what == MSG_DISPATCH_BACKGROUND) {
+                PKEvent event = (PKEvent) msg.obj;
+                dispatch(event, Lane.BACKGROUND, msg.arg1);
+                release(event);
+            } else if (msg.what == MSG_DELIVER_STICKY) {
+                deliverSticky((StickyDelivery) msg.obj);
+            }
+            return true;
+        }
+    };
+
+    private Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            drain();
+        }
+    };
+
     public MessageBus() {
-        listeners = new ConcurrentHashMap<>();
     }
-    
+
+    public void setDispatchMode(DispatchMode dispatchMode) {
+        this.dispatchMode = dispatchMode != null ? dispatchMode : DispatchMode.IMMEDIATE;
+    }
+
+    public DispatchMode getDispatchMode() {
+        return dispatchMode;
+    }
+
+    /**
+     * Measure every listener call with the given monitor, or stop measuring if null.
+     * @param dispatchMonitor - the monitor.
+     */
+    public void setDispatchMonitor(DispatchMonitor dispatchMonitor) {
+        this.dispatchMonitor = dispatchMonitor;
+    }
+
+    /**
+     * Record every posted event into the given journal, or stop recording if null.
+     * @param eventJournal - the journal.
+     */
+    public void setEventJournal(EventJournal eventJournal) {
+        this.eventJournal = eventJournal;
+    }
+
+    public EventJournal getEventJournal() {
+        return eventJournal;
+    }
+
+    /**
+     * Set how many events may wait for the main looper before the overflow policies kick in. When the
+     * main thread stalls (layout, GC), this keeps the backlog and its memory bounded instead of
+     * flooding listeners with stale events once it's back.
+     * @param capacity - the maximum number of queued events, must be positive.
+     */
+    public void setQueueCapacity(int capacity) {
+        Assert.checkArgument(capacity > 0, "capacity must be positive");
+        synchronized (queueLock) {
+            queueCapacity = capacity;
+        }
+    }
+
+    /**
+     * Set the overflow policy of an event type. Types without a policy are never dropped.
+     * @param eventType - the event type.
+     * @param policy - the policy, or null to go back to {@link OverflowPolicy#NEVER_DROP}.
+     */
+    public void setOverflowPolicy(Enum eventType, OverflowPolicy policy) {
+        synchronized (queueLock) {
+            if (policy != null && policy != OverflowPolicy.NEVER_DROP) {
+                overflowPolicies.put(eventType, policy);
+            } else {
+                overflowPolicies.remove(eventType);
+            }
+        }
+    }
+
+    /**
+     * @param eventType - the event type.
+     * @return - how many events of this type were dropped because the queue was full.
+     */
+    public long getDroppedEventCount(Enum eventType) {
+        synchronized (queueLock) {
+            long[] count = droppedCounts.get(eventType);
+            return count != null ? count[0] : 0;
+        }
+    }
+
+    /**
+     * @return - how many events were dropped in total because the queue was full.
+     */
+    public long getDroppedEventCount() {
+        synchronized (queueLock) {
+            return droppedTotal;
+        }
+    }
+
+    /**
+     * Coalesce events of the given type: within each window of windowMs, listeners only receive the
+     * latest event that was posted. The first event after a quiet window is delivered right away.
+     * Listeners that need every sample can opt out with {@link ListenOptions#setEverySample(boolean)}.
+     * Note that coalesced events are delivered apart from the regular queue, so their order relative
+     * to events of other types is not kept.
+     * @param eventType - the event type to coalesce.
+     * @param windowMs - the coalescing window, in milliseconds. 0 or less turns coalescing off for that type.
+     */
+    public void setCoalescing(Enum eventType, long windowMs) {
+        if (windowMs > 0) {
+            coalescers.put(eventType, new Coalescer(windowMs));
+        } else {
+            coalescers.remove(eventType);
+        }
+    }
+
+    /**
+     * Make the given event types sticky: the bus keeps the most recent event of each type, and hands it
+     * to listeners that subscribe to that type later on, right after {@link #listen(PKEvent.Listener, Enum[])}.
+     * Late subscribers can then rebuild their state without polling the player. Each event reaches a new
+     * listener once, either live or as the replay; the replay is skipped if a newer event got there first.
+     * @param eventTypes - the event types to keep.
+     */
+    public void setSticky(Enum... eventTypes) {
+        Collections.addAll(stickyTypes, eventTypes);
+    }
+
+    /**
+     * Forget the kept sticky events, e.g. when new media is loaded. The types stay sticky.
+     */
+    public void clearStickyEvents() {
+        synchronized (stickyEvents) {
+            for (PKEvent event : stickyEvents.values()) {
+                release(event);
+            }
+            stickyEvents.clear();
+        }
+    }
+
+    /**
+     * Post an event to its listeners. Takes over the caller's reference to pooled events, such as
+     * {@link PlayerEvent.PlaybackInfoUpdated#obtain}; the caller must not touch them afterwards.
+     * @param event - the event.
+     */
     public void post(final PKEvent event) {
+        try {
+            postInternal(event);
+        } finally {
+            release(event);
+        }
+    }
+
+    private void postInternal(PKEvent event) {
+        EventJournal journal = eventJournal;
+        if (journal != null) {
+            journal.recordEvent(event);
+        }
+
+        Enum eventType = event.eventType();
+        if (stickyTypes.contains(eventType)) {
+            // Kept and handed over under the lock that listen() replays under, so a new listener gets
+            // each sticky event either live or as the replay, never both.
+            synchronized (stickyEvents) {
+                retain(event);
+                release(stickyEvents.put(eventType, event));
+                handOver(event);
+            }
+        } else {
+            handOver(event);
+        }
+
+        dispatch(event, Lane.POSTING, DELIVER_ALL);
+    }
 
-        final Set<PKEvent.Listener> listeners = this.listeners.get(event.eventType());
-        
-        if (listeners != null) {
-            postHandler.post(new Runnable() {
-                @Override
-                public void run() {
-                    for (PKEvent.Listener listener : new HashSet<>(listeners)) {
-                        listener.onEvent(event);
+    // Passes the event on to the MAIN and BACKGROUND lanes.
+    private void handOver(PKEvent event) {
+        Enum eventType = event.eventType();
+        Subscriber[] subscribers = subscribersOf(eventType);
+        if (subscribers.length == 0) {
+            return;
+        }
+
+        // Coalesced types go through the coalescer; the regular path only serves listeners that want every sample.
+        int audience = DELIVER_ALL;
+        Coalescer coalescer = coalescers.get(eventType);
+        if (coalescer != null) {
+            if (hasSubscribers(subscribers, Lane.MAIN, DELIVER_COALESCED) || hasSubscribers(subscribers, Lane.BACKGROUND, DELIVER_COALESCED)) {
+                offerCoalesced(coalescer, event);
+            }
+            audience = DELIVER_EVERY_SAMPLE;
+        }
+
+        if (hasSubscribers(subscribers, Lane.BACKGROUND, audience)) {
+            postToBackground(event, audience);
+        }
+        if (hasSubscribers(subscribers, Lane.MAIN, audience)) {
+            enqueue(event);
+        }
+    }
+
+    private void postSticky(StickyDelivery delivery) {
+        Handler handler = delivery.subscriber.lane == Lane.BACKGROUND ? backgroundHandler : postHandler;
+        handler.sendMessage(handler.obtainMessage(MSG_DELIVER_STICKY, delivery));
+    }
+
+    private void deliverSticky(StickyDelivery delivery) {
+        Subscriber subscriber = delivery.subscriber;
+        Enum eventType = delivery.event.eventType();
+        // Skip it if the listener went away in the meantime, or already got a live event of the type, which
+        // can't be older. Also skip it if such an event is still on its way: it would arrive after the replay.
+        if (subscriber.pendingReplays.remove(eventType) && indexOf(subscribersOf(eventType), subscriber.listener) >= 0
+                && !hasPendingLive(subscriber, eventType)) {
+            invoke(subscriber, delivery.event);
+        }
+        release(delivery.event);
+    }
+
+    // Whether an event of the type, posted before the subscriber registered, is still queued for it.
+    private boolean hasPendingLive(Subscriber subscriber, Enum eventType) {
+        if (subscriber.lane == Lane.POSTING) {
+            return false;
+        }
+        Coalescer coalescer = coalescers.get(eventType);
+        if (coalescer != null && !subscriber.everySample) {
+            synchronized (coalescer) {
+                return coalescer.latest != null;
+            }
+        }
+        if (subscriber.lane == Lane.MAIN) {
+            synchronized (queueLock) {
+                for (PKEvent queued : pendingEvents) {
+                    if (queued.eventType() == eventType) {
+                        return true;
                     }
                 }
-            });
+            }
+        }
+        // The background lane delivers in order, so its live events got there before the replay.
+        return false;
+    }
+
+    private void postToBackground(PKEvent event, int audience) {
+        Handler handler = backgroundHandler;
+        retain(event);
+        handler.sendMessage(handler.obtainMessage(MSG_DISPATCH_BACKGROUND, audience, 0, event));
+    }
+
+    private void enqueue(PKEvent event) {
+        synchronized (queueLock) {
+            boolean grown = true;
+            if (pendingEvents.size() < queueCapacity) {
+                retain(event);
+                pendingEvents.add(event);
+            } else if (makeRoom(event)) {
+                grown = false;
+                if (!overflowing) {
+                    overflowing = true;
+                    log.w("Event queue is full (" + queueCapacity + "), dropping events until the main thread catches up");
+                }
+            }
+
+            // Messages are recycled by the looper, so none of these allocate.
+            DispatchMode mode = dispatchMode;
+            if (mode == DispatchMode.IMMEDIATE) {
+                // One message per queued event; a replaced event reuses the message of the one it replaced.
+                if (grown) {
+                    postHandler.sendEmptyMessage(MSG_DISPATCH_NEXT);
+                }
+            } else if (!drainScheduled) {
+                drainScheduled = true;
+                if (mode == DispatchMode.BATCHED) {
+                    postHandler.sendEmptyMessage(MSG_DRAIN);
+                } else if (Looper.myLooper() == Looper.getMainLooper()) {
+                    Choreographer.getInstance().postFrameCallback(frameCallback);
+                } else {
+                    // Choreographer instances are per-looper; get the main one from the main thread.
+                    postHandler.sendEmptyMessage(MSG_SCHEDULE_FRAME);
+                }
+            }
+        }
+    }
+
+    // Called with a full queue. Drops the oldest droppable event and queues the new one, returning true
+    // if something was dropped. Events that may not be dropped are queued past the capacity.
+    private boolean makeRoom(PKEvent event) {
+        Iterator<PKEvent> iterator = pendingEvents.iterator();
+        while (iterator.hasNext()) {
+            PKEvent queued = iterator.next();
+            if (overflowPolicies.containsKey(queued.eventType())) {
+                iterator.remove();
+                countDropped(queued.eventType());
+                release(queued);
+                retain(event);
+                pendingEvents.add(event);
+                return true;
+            }
+        }
+
+        if (overflowPolicies.containsKey(event.eventType())) {
+            // Nothing older to drop, so this one is the oldest droppable event.
+            countDropped(event.eventType());
+            return true;
+        }
+        retain(event);
+        pendingEvents.add(event);
+        return false;
+    }
+
+    private void countDropped(Enum eventType) {
+        long[] count = droppedCounts.get(eventType);
+        if (count == null) {
+            count = new long[1];
+            droppedCounts.put(eventType, count);
+        }
+        count[0]++;
+        droppedTotal++;
+    }
+
+    private void offerCoalesced(Coalescer coalescer, PKEvent event) {
+        synchronized (coalescer) {
+            boolean flushScheduled = coalescer.latest != null;
+            retain(event);
+            release(coalescer.latest);
+            coalescer.latest = event;
+            if (!flushScheduled) {
+                long delay = coalescer.lastDeliveryTime + coalescer.windowMs - SystemClock.uptimeMillis();
+                postHandler.sendMessageDelayed(postHandler.obtainMessage(MSG_FLUSH_COALESCED, coalescer), Math.max(0, delay));
+            }
+        }
+    }
+
+    private void flushCoalesced(Coalescer coalescer) {
+        PKEvent event;
+        // Like post(), hand sticky types over to the background lane under the replay lock.
+        synchronized (stickyEvents) {
+            synchronized (coalescer) {
+                event = coalescer.latest;
+                coalescer.latest = null;
+                coalescer.lastDeliveryTime = SystemClock.uptimeMillis();
+            }
+            if (event != null && hasSubscribers(subscribersOf(event.eventType()), Lane.BACKGROUND, DELIVER_COALESCED)) {
+                postToBackground(event, DELIVER_COALESCED);
+            }
+        }
+        if (event != null) {
+            dispatch(event, Lane.MAIN, DELIVER_COALESCED);
+            release(event);
+        }
+    }
+
+    private PKEvent pollEvent() {
+        synchronized (queueLock) {
+            PKEvent event = pendingEvents.poll();
+            if (pendingEvents.isEmpty()) {
+                overflowing = false;
+            }
+            return event;
+        }
+    }
+
+    private void dispatchNext() {
+        PKEvent event = pollEvent();
+        if (event != null) {
+            dispatchQueued(event);
+        }
+    }
+
+    private void drain() {
+        int count;
+        synchronized (queueLock) {
+            drainScheduled = false;
+            count = pendingEvents.size();
+        }
+        // Only deliver what was queued so far; events posted by listeners go to the next batch,
+        // so a chatty listener can't keep the looper busy forever.
+        for (int i = 0; i < count; i++) {
+            PKEvent event = pollEvent();
+            if (event == null) {
+                break;
+            }
+            dispatchQueued(event);
+        }
+    }
+
+    private void dispatchQueued(PKEvent event) {
+        // Queued events of a coalesced type are only for the listeners that asked for every sample.
+        dispatch(event, Lane.MAIN, coalescers.containsKey(event.eventType()) ? DELIVER_EVERY_SAMPLE : DELIVER_ALL);
+        release(event);
+    }
+
+    // Pooled events go back to their pool once every holder let go of them. Each queue entry, coalescer slot,
+    // sticky slot and pending lane delivery holds one reference.
+    private static void retain(PKEvent event) {
+        if (event instanceof PlayerEvent.PlaybackInfoUpdated) {
+            ((PlayerEvent.PlaybackInfoUpdated) event).retain();
+        }
+    }
+
+    private static void release(PKEvent event) {
+        if (event instanceof PlayerEvent.PlaybackInfoUpdated) {
+            ((PlayerEvent.PlaybackInfoUpdated) event).release();
+        }
+    }
+
+    private void dispatch(PKEvent event, Lane lane, int audience) {
+        // The array is never mutated after publishing, so listeners may add/remove themselves while iterating.
+        for (Subscriber subscriber : subscribersOf(event.eventType())) {
+            if (accepts(subscriber, lane, audience)) {
+                invoke(subscriber, event);
+            }
+        }
+    }
+
+    private void invoke(Subscriber subscriber, PKEvent event) {
+        if (!subscriber.pendingReplays.isEmpty()) {
+            subscriber.pendingReplays.remove(event.eventType());
+        }
+        if (subscriber.filter != null && !subscriber.filter.accept(event)) {
+            return;
+        }
+
+        DispatchMonitor monitor = dispatchMonitor;
+        if (monitor == null) {
+            subscriber.listener.onEvent(event);
+            return;
+        }
+
+        long start = System.nanoTime();
+        subscriber.listener.onEvent(event);
+        long duration = System.nanoTime() - start;
+
+        Enum eventType = event.eventType();
+        // Don't report on the reports, or a slow diagnostics listener would feed itself.
+        if (monitor.record(subscriber.listener, eventType, duration) && !(event instanceof DiagnosticEvent)) {
+            post(new DiagnosticEvent.SlowListener(subscriber.listener.getClass().getName(), eventType, subscriber.lane,
+                    duration / 1000, monitor.getBudgetMicros()));
+        }
+    }
+
+    private static boolean accepts(Subscriber subscriber, Lane lane, int audience) {
+        if (subscriber.lane != lane) {
+            return false;
+        }
+        switch (audience) {
+            case DELIVER_EVERY_SAMPLE:
+                return subscriber.everySample;
+            case DELIVER_COALESCED:
+                return !subscriber.everySample;
+            default:
+                return true;
         }
     }
 
+    private Subscriber[] subscribersOf(Enum eventType) {
+        Subscriber[][] table = registry.get(eventType.getDeclaringClass());
+        if (table == null) {
+            return NO_SUBSCRIBERS;
+        }
+        Subscriber[] subscribers = table[eventType.ordinal()];
+        return subscribers != null ? subscribers : NO_SUBSCRIBERS;
+    }
+
+    private static boolean hasSubscribers(Subscriber[] subscribers, Lane lane, int audience) {
+        for (Subscriber subscriber : subscribers) {
+            if (accepts(subscriber, lane, audience)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void remove(PKEvent.Listener listener, Enum... eventTypes){
-        for (Enum eventType : eventTypes) {
-            Set<PKEvent.Listener> listenerSet = listeners.get(eventType);
-            if (listenerSet != null) {
-                listenerSet.remove(listener);
+        synchronized (registryLock) {
+            Map<Class<?>, Subscriber[][]> updated = new HashMap<>(registry);
+            for (Enum eventType : eventTypes) {
+                Class<?> eventClass = eventType.getDeclaringClass();
+                Subscriber[][] table = updated.get(eventClass);
+                if (table == null) {
+                    continue;
+                }
+                int ordinal = eventType.ordinal();
+                Subscriber[] subscribers = table[ordinal];
+                int index = indexOf(subscribers, listener);
+                if (index < 0) {
+                    continue;
+                }
+
+                Subscriber[] shrunk = null;
+                if (subscribers.length > 1) {
+                    shrunk = new Subscriber[subscribers.length - 1];
+                    System.arraycopy(subscribers, 0, shrunk, 0, index);
+                    System.arraycopy(subscribers, index + 1, shrunk, index, subscribers.length - index - 1);
+                }
+                table = table.clone();
+                table[ordinal] = shrunk;
+                updated.put(eventClass, table);
             }
+            registry = updated;
         }
     }
-    
+
     public void listen(PKEvent.Listener listener, Enum... eventTypes) {
-        for (Enum eventType : eventTypes) {
-            Set<PKEvent.Listener> listenerSet = listeners.get(eventType);
-            if (listenerSet == null) {
-                listenerSet = new HashSet<>();
-                listenerSet.add(listener);
-                listeners.put(eventType, listenerSet);
-            } else {
-                listenerSet.add(listener);
+        listen(listener, null, eventTypes);
+    }
+
+    /**
+     * Listen to a set of event types, for example {@code EnumSet.of(PlayerEvent.Type.PLAY, PlayerEvent.Type.PAUSE)}
+     * or {@code EnumSet.range(AdEvent.Type.STARTED, AdEvent.Type.THIRD_QUARTILE)}.
+     * @param listener - the listener.
+     * @param options - delivery options, or null for the defaults.
+     * @param eventTypes - the event types to listen to.
+     */
+    public <E extends Enum<E>> void listen(PKEvent.Listener listener, ListenOptions options, EnumSet<E> eventTypes) {
+        listen(listener, options, eventTypes.toArray(new Enum[eventTypes.size()]));
+    }
+
+    /**
+     * Listen to events with specific delivery options. If the listener is already registered for
+     * one of the types, its options for that type are replaced.
+     * @param listener - the listener.
+     * @param options - delivery options, or null for the defaults.
+     * @param eventTypes - the event types to listen to.
+     */
+    public void listen(PKEvent.Listener listener, ListenOptions options, Enum... eventTypes) {
+        Subscriber subscriber = new Subscriber(listener, options);
+        StickyDelivery[] postingReplays = null;
+        synchronized (registryLock) {
+            if (subscriber.lane == Lane.BACKGROUND && backgroundHandler == null) {
+                backgroundHandler = new Handler(getBackgroundLooper(), backgroundCallback);
+            }
+
+            Map<Class<?>, Subscriber[][]> updated = new HashMap<>(registry);
+            for (Enum eventType : eventTypes) {
+                Class<?> eventClass = eventType.getDeclaringClass();
+                Subscriber[][] table = updated.get(eventClass);
+                table = table != null ? table.clone() : new Subscriber[eventClass.getEnumConstants().length][];
+
+                int ordinal = eventType.ordinal();
+                Subscriber[] subscribers = table[ordinal];
+                if (subscribers == null) {
+                    subscribers = NO_SUBSCRIBERS;
+                }
+
+                Subscriber[] grown;
+                int index = indexOf(subscribers, listener);
+                if (index >= 0) {
+                    grown = subscribers.clone();
+                    grown[index] = subscriber;
+                } else {
+                    grown = Arrays.copyOf(subscribers, subscribers.length + 1);
+                    grown[subscribers.length] = subscriber;
+                }
+                table[ordinal] = grown;
+                updated.put(eventClass, table);
+            }
+
+            // Publish and queue the replays under the lock that post() hands sticky events over under. A sticky
+            // event posted earlier is the one replayed, one posted later is queued live behind the replay.
+            synchronized (stickyEvents) {
+                registry = updated;
+                for (int i = 0; i < eventTypes.length; i++) {
+                    PKEvent stickyEvent = stickyEvents.get(eventTypes[i]);
+                    if (stickyEvent == null) {
+                        continue;
+                    }
+                    retain(stickyEvent);
+                    subscriber.pendingReplays.add(eventTypes[i]);
+                    StickyDelivery delivery = new StickyDelivery(subscriber, stickyEvent);
+                    if (subscriber.lane != Lane.POSTING) {
+                        postSticky(delivery);
+                    } else {
+                        if (postingReplays == null) {
+                            postingReplays = new StickyDelivery[eventTypes.length];
+                        }
+                        postingReplays[i] = delivery;
+                    }
+                }
+            }
+        }
+
+        // Listeners are never called under the locks.
+        if (postingReplays != null) {
+            for (StickyDelivery delivery : postingReplays) {
+                if (delivery != null) {
+                    deliverSticky(delivery);
+                }
+            }
+        }
+    }
+
+    private static synchronized Looper getBackgroundLooper() {
+        if (backgroundThread == null) {
+            backgroundThread = new HandlerThread("PlayKitEvents", Process.THREAD_PRIORITY_BACKGROUND);
+            backgroundThread.start();
+        }
+        return backgroundThread.getLooper();
+    }
+
+    private static int indexOf(Subscriber[] subscribers, PKEvent.Listener listener) {
+        if (subscribers != null) {
+            for (int i = 0; i < subscribers.length; i++) {
+                if (subscribers[i].listener.equals(listener)) {
+                    return i;
+                }
             }
         }
+        return -1;
     }
 }
@@ -0,0 +1,135 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit;
+
+/**
+ * Buffering limits of the player, see {@link Player.Settings#setBufferProfile(PKBufferProfile)}.
+ * All durations are in milliseconds. Start from one of the presets and adjust as needed.
+ */
+public class PKBufferProfile {
+    private long minBufferMs = 15000;
+    private long maxBufferMs = 30000;
+    private long bufferForPlaybackMs = 2500;
+    private long bufferForPlaybackAfterRebufferMs = 5000;
+    private int targetBufferBytes = 0;
+
+    /**
+     * @return - the ExoPlayer defaults.
+     */
+    public static PKBufferProfile defaults() {
+        return new PKBufferProfile();
+    }
+
+    /**
+     * Keeps close to the live edge: small buffers and a quick start.
+     * @return - the profile.
+     */
+    public static PKBufferProfile lowLatencyLive() {
+        return new PKBufferProfile().setMinBufferMs(4000).setMaxBufferMs(8000)
+                .setBufferForPlaybackMs(1000).setBufferForPlaybackAfterRebufferMs(2000);
+    }
+
+    /**
+     * Starts playing as soon as a second is buffered, then builds up the regular buffer.
+     * @return - the profile.
+     */
+    public static PKBufferProfile fastStart() {
+        return new PKBufferProfile().setBufferForPlaybackMs(1000).setBufferForPlaybackAfterRebufferMs(3000);
+    }
+
+    /**
+     * For low-RAM devices: shorter buffers, capped at 6 MB.
+     * @return - the profile.
+     */
+    public static PKBufferProfile memoryConstrained() {
+        return new PKBufferProfile().setMinBufferMs(5000).setMaxBufferMs(15000).setTargetBufferBytes(6 * 1024 * 1024);
+    }
+
+    /**
+     * For long VOD: buffers further ahead to ride out network drops.
+     * @return - the profile.
+     */
+    public static PKBufferProfile longVod() {
+        return new PKBufferProfile().setMinBufferMs(30000).setMaxBufferMs(60000);
+    }
+
+    /**
+     * Below this buffer the player always loads more.
+     * @param minBufferMs - the minimum buffer duration.
+     * @return - the profile.
+     */
+    public PKBufferProfile setMinBufferMs(long minBufferMs) {
+        this.minBufferMs = minBufferMs;
+        return this;
+    }
+
+    /**
+     * Above this buffer the player stops loading.
+     * @param maxBufferMs - the maximum buffer duration.
+     * @return - the profile.
+     */
+    public PKBufferProfile setMaxBufferMs(long maxBufferMs) {
+        this.maxBufferMs = maxBufferMs;
+        return this;
+    }
+
+    /**
+     * How much must be buffered to start playing, or to resume after a seek.
+     * @param bufferForPlaybackMs - the buffer duration.
+     * @return - the profile.
+     */
+    public PKBufferProfile setBufferForPlaybackMs(long bufferForPlaybackMs) {
+        this.bufferForPlaybackMs = bufferForPlaybackMs;
+        return this;
+    }
+
+    /**
+     * How much must be buffered to resume playing after the buffer ran out.
+     * @param bufferForPlaybackAfterRebufferMs - the buffer duration.
+     * @return - the profile.
+     */
+    public PKBufferProfile setBufferForPlaybackAfterRebufferMs(long bufferForPlaybackAfterRebufferMs) {
+        this.bufferForPlaybackAfterRebufferMs = bufferForPlaybackAfterRebufferMs;
+        return this;
+    }
+
+    /**
+     * Stop loading above the min buffer once this many bytes are buffered.
+     * @param targetBufferBytes - the byte target, or 0 to derive it from the selected tracks.
+     * @return - the profile.
+     */
+    public PKBufferProfile setTargetBufferBytes(int targetBufferBytes) {
+        this.targetBufferBytes = targetBufferBytes;
+        return this;
+    }
+
+    public long getMinBufferMs() {
+        return minBufferMs;
+    }
+
+    public long getMaxBufferMs() {
+        return maxBufferMs;
+    }
+
+    public long getBufferForPlaybackMs() {
+        return bufferForPlaybackMs;
+    }
+
+    public long getBufferForPlaybackAfterRebufferMs() {
+        return bufferForPlaybackAfterRebufferMs;
+    }
+
+    public int getTargetBufferBytes() {
+        return targetBufferBytes;
+    }
+}
@@ -18,6 +18,7 @@ package com.kaltura.playkit;
 public class PKMediaConfig {
     private long startPosition = 0;
     private PKMediaEntry mediaEntry;
+    private StartupTracer startupTracer;
 
     /**
      * Getter for start position. Default is 0.
@@ -49,5 +50,20 @@ public class PKMediaConfig {
         this.mediaEntry = mediaEntry;
         return this;
     }
-}
 
+    public StartupTracer getStartupTracer() {
+        return startupTracer;
+    }
+
+    /**
+     * Setter for the startup tracer. Pass the tracer that was given to the media provider to include the
+     * provider request in the startup metrics. If not set, the player creates its own tracer.
+     *
+     * @param startupTracer - the tracer that times this media's startup.
+     * @return - the config object.
+     */
+    public PKMediaConfig setStartupTracer(StartupTracer startupTracer) {
+        this.startupTracer = startupTracer;
+        return this;
+    }
+}
@@ -29,6 +29,19 @@ public class PlaybackInfo {
 
 
     public PlaybackInfo(String mediaUrl, long videoBitrate, long audioBitrate, long videoThroughput, long videoWidth, long videoHeight, boolean isLiveStream) {
+        set(mediaUrl, videoBitrate, audioBitrate, videoThroughput, videoWidth, videoHeight, isLiveStream);
+    }
+
+    /**
+     * Copy another info, e.g. to keep the info of a {@link PlayerEvent.PlaybackInfoUpdated} past the callback.
+     * @param other - the info to copy.
+     */
+    public PlaybackInfo(PlaybackInfo other) {
+        this(other.mediaUrl, other.videoBitrate, other.audioBitrate, other.videoThroughput, other.videoWidth, other.videoHeight, other.isLiveStream);
+    }
+
+    // Used by pooled events only.
+    void set(String mediaUrl, long videoBitrate, long audioBitrate, long videoThroughput, long videoWidth, long videoHeight, boolean isLiveStream) {
         this.mediaUrl = mediaUrl;
         this.videoBitrate = videoBitrate;
         this.audioBitrate = audioBitrate;
@@ -16,6 +16,7 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.kaltura.playkit.ads.AdController;
+import com.kaltura.playkit.player.MediaSegmentCache;
 import com.kaltura.playkit.player.PlayerView;
 import com.kaltura.playkit.utils.Consts;
 
@@ -56,6 +57,94 @@ public interface Player {
          * @return - Player Settings.
          */
         Settings useTextureView(boolean useTextureView);
+
+        /**
+         * Decide how player events are handed over to the listeners on the main thread.
+         * By default every event is delivered in its own looper message. Use {@link MessageBus.DispatchMode#BATCHED}
+         * or {@link MessageBus.DispatchMode#FRAME} to deliver bursts of events (e.g. on startup or ABR switch)
+         * together. The order in which each listener receives events is kept in all modes.
+         * @param dispatchMode - the dispatch mode.
+         * @return - Player Settings.
+         */
+        Settings setEventDispatchMode(MessageBus.DispatchMode dispatchMode);
+
+        /**
+         * Coalesce high-frequency events of the given type: within each window, listeners only receive
+         * the latest event that was posted. Off by default: every event is delivered. Good candidates are
+         * {@link PlayerEvent.Type#PLAYBACK_INFO_UPDATED},
+         * {@link com.kaltura.playkit.plugins.ads.AdEvent.Type#PLAY_HEAD_CHANGED} and
+         * {@link com.kaltura.playkit.plugins.ads.AdEvent.Type#AD_PROGRESS}, with
+         * {@link Consts#DEFAULT_EVENT_COALESCING_WINDOW_MS}.
+         * Note! Independently of coalescing, when the main thread falls behind, the oldest pending events of
+         * these types (not state changes or errors) are dropped first.
+         * @param eventType - the event type.
+         * @param windowMs - the coalescing window in milliseconds, or 0 to deliver every event of that type.
+         * @return - Player Settings.
+         */
+        Settings setEventCoalescing(Enum eventType, long windowMs);
+
+        /**
+         * Measure how long each event listener takes, per listener and event type.
+         * Listener calls that go over the monitor's budget are reported with {@link DiagnosticEvent.SlowListener}.
+         * Off by default.
+         * @param dispatchMonitor - the monitor to record into, or null to stop measuring.
+         * @return - Player Settings.
+         */
+        Settings setDispatchMonitor(DispatchMonitor dispatchMonitor);
+
+        /**
+         * Record all player events and player calls into the given journal, for dumping and offline replay.
+         * Off by default.
+         * @param eventJournal - the journal to record into, or null to stop recording.
+         * @return - Player Settings.
+         */
+        Settings setEventJournal(EventJournal eventJournal);
+
+        /**
+         * Set the buffering limits, e.g. {@link PKBufferProfile#memoryConstrained()} on low-RAM devices.
+         * May be called during playback to switch profiles; the new limits apply right away.
+         * Default is {@link PKBufferProfile#defaults()}.
+         * @param bufferProfile - the buffering limits.
+         * @return - Player Settings.
+         */
+        Settings setBufferProfile(PKBufferProfile bufferProfile);
+
+        /**
+         * Keep downloaded media segments in a disk cache, so replays and seek-back don't hit the network.
+         * Applies from the next media that is loaded. Off by default.
+         * @param segmentCache - the cache, usually {@link MediaSegmentCache#getInstance(android.content.Context)}, or null to disable.
+         * @return - Player Settings.
+         */
+        Settings setSegmentCache(MediaSegmentCache segmentCache);
+
+        /**
+         * Keep the loaded media, buffers and DRM session for this long after {@link Player#onApplicationPaused()},
+         * so {@link Player#onApplicationResumed()} within that time resumes instantly instead of preparing again.
+         * The player is paused and its video surface detached meanwhile. Applies to ExoPlayer-based playback only.
+         * Default is 0: release right away.
+         * @param gracePeriodMs - how long to keep the media, in milliseconds.
+         * @return - Player Settings.
+         */
+        Settings setBackgroundGracePeriod(long gracePeriodMs);
+
+        /**
+         * Keep live playback at a fixed distance from the live edge. Small drifts are corrected by playing
+         * slightly faster or slower (Android 6.0 and up), larger ones by seeking back to the target.
+         * The measured latency is sent periodically as a {@link com.kaltura.playkit.DiagnosticEvent.LiveLatency}.
+         * Applies to ExoPlayer-based playback only. Default is 0: no latency control.
+         * @param targetOffsetMs - wanted distance from the live edge, in milliseconds. 0 to disable.
+         * @param maxDriftMs - how far behind the target playback may fall before seeking.
+         * @return - Player Settings.
+         */
+        Settings setLiveLatencyTarget(long targetOffsetMs, long maxDriftMs);
+
+        /**
+         * Set how often {@link PlayerEvent.QosMetricsUpdated} is sent while playing.
+         * Default is 10 seconds.
+         * @param intervalMs - the interval in milliseconds. 0 to stop sending it.
+         * @return - Player Settings.
+         */
+        Settings setQosReportInterval(long intervalMs);
     }
 
     /**
@@ -71,17 +160,27 @@ public interface Player {
     void prepare(@NonNull PKMediaConfig playerConfig);
 
     /**
-     * Prepare for playing the next entry. If config.shouldAutoPlay is true, the entry will automatically
-     * play when it's ready and the current entry is ended.
+     * Prepare for playing the next entry. The entry is loaded and buffered in the background while the
+     * current one plays, so {@link #skip()} can switch to it without a cold start.
      */
     void prepareNext(@NonNull PKMediaConfig mediaConfig);
 
+    /**
+     * Fetch and parse the manifest of an entry the user is likely to play, so its {@link #prepare(PKMediaConfig)}
+     * skips the manifest round trip. Cheaper than {@link #prepareNext(PKMediaConfig)}: nothing is buffered.
+     * Applies to DASH and HLS sources; the manifest is kept for about a minute.
+     */
+    void prefetchManifest(@NonNull PKMediaConfig mediaConfig);
+
     void updatePluginConfig(@NonNull String pluginName, @Nullable Object pluginConfig);
 
     /**
-     * Load the entry that was prepared with {@link #prepareNext(PKMediaConfig)}.
+     * Load the entry that was prepared with {@link #prepareNext(PKMediaConfig)}. If the current entry is
+     * playing, the next one starts playing right away.
+     * @return - true if the player switched to the next entry; false if there was none prepared or it
+     * couldn't be loaded, in which case the current entry goes on.
      */
-    void skip();
+    boolean skip();
 
     /**
      * Player lifecycle method. Should be used when the application went to onPause();
@@ -142,6 +241,20 @@ public interface Player {
      */
     long getBufferedPosition();
 
+    /**
+     * Read the playback position, duration, state and bitrate from any thread, without locking.
+     * Published a few times a second and on state changes and seeks, so it may be slightly stale;
+     * use {@link PlayerSnapshot#getEstimatedPosition()} when that matters. During ads it describes the content.
+     * @return - the latest snapshot of the content playback, never null.
+     */
+    PlayerSnapshot getSnapshot();
+
+    /**
+     * @return - playback quality counters (dropped frames, audio underruns, decoder and load times)
+     * of the current media, or null if the player engine doesn't collect them or is null.
+     */
+    QosMetrics getQosMetrics();
+
     /**
      * Change the volume of the current audio track.
      * Accept values between 0 and 1. Where 0 is mute and 1 is maximum volume.
@@ -184,6 +297,17 @@ public interface Player {
      */
     void seekTo(long position);
 
+    /**
+     * Call with true when the user starts dragging the seek bar and with false when they let go. In between,
+     * {@link #seekTo(long)} calls are coalesced to the latest position so the preview keeps up without
+     * restarting loads on every move, and a single precise seek runs when scrubbing ends.
+     * Preview seeks are not snapped to keyframes or segment boundaries; a position outside the buffer is only
+     * throttled, so each one still costs a load. Use a {@link ThumbnailPreviewLoader} for cheap previews.
+     * {@link PlayerEvent.Type#SEEKING} and {@link PlayerEvent.Type#SEEKED} are sent once per gesture.
+     * @param scrubbing - whether a scrub gesture is in progress.
+     */
+    void setScrubbing(boolean scrubbing);
+
     AdController getAdController();
 
     /**
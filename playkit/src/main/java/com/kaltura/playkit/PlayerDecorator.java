@@ -30,8 +30,8 @@ public abstract class PlayerDecorator extends PlayerDecoratorBase {
     }
 
     @Override
-    final public void skip() {
-        super.skip();
+    final public boolean skip() {
+        return super.skip();
     }
 
     @Override
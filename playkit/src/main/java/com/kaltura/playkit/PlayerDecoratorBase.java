@@ -40,11 +40,26 @@ public class PlayerDecoratorBase implements Player {
         return player.getCurrentPosition();
     }
 
+    @Override
+    public PlayerSnapshot getSnapshot() {
+        return player.getSnapshot();
+    }
+
+    @Override
+    public QosMetrics getQosMetrics() {
+        return player.getQosMetrics();
+    }
+
     @Override
     public void seekTo(long position) {
         player.seekTo(position);
     }
 
+    @Override
+    public void setScrubbing(boolean scrubbing) {
+        player.setScrubbing(scrubbing);
+    }
+
     @Override
     public AdController getAdController() {
         return player.getAdController();
@@ -85,6 +100,11 @@ public class PlayerDecoratorBase implements Player {
         player.prepareNext(mediaConfig);
     }
 
+    @Override
+    public void prefetchManifest(@NonNull PKMediaConfig mediaConfig) {
+        player.prefetchManifest(mediaConfig);
+    }
+
     @Override
     public long getBufferedPosition() {
         return player.getBufferedPosition();
@@ -106,8 +126,8 @@ public class PlayerDecoratorBase implements Player {
     }
 
     @Override
-    public void skip() {
-        player.skip();
+    public boolean skip() {
+        return player.skip();
     }
 
     @Override
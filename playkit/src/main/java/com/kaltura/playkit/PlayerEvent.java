@@ -16,6 +16,7 @@ import com.kaltura.playkit.player.PKTracks;
 import com.kaltura.playkit.player.metadata.PKMetadata;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by Noam Tamim @ Kaltura on 24/10/2016.
@@ -71,13 +72,79 @@ public class PlayerEvent implements PKEvent {
         }
     }
 
+    /**
+     * Sent on every bandwidth sample and track change. The player reuses these instances: the event and
+     * its {@link #playbackInfo} are only valid during the listener callback. A listener that keeps the
+     * info for later must copy it, with {@link PlaybackInfo#PlaybackInfo(PlaybackInfo)}.
+     */
     public static class PlaybackInfoUpdated extends PlayerEvent {
 
+        private static final int POOL_SIZE = 8;
+        private static final PlaybackInfoUpdated[] pool = new PlaybackInfoUpdated[POOL_SIZE];
+        private static int pooledCount;
+
         public final PlaybackInfo playbackInfo;
 
+        // Only pooled instances are counted. Each holder (the producer, the bus queue, a coalescer, the sticky
+        // store, a pending lane delivery) owns one reference; the last one to let go returns it to the pool.
+        private final boolean pooled;
+        private final AtomicInteger references = new AtomicInteger();
+
         public PlaybackInfoUpdated(PlaybackInfo playbackInfo) {
+            this(playbackInfo, false);
+        }
+
+        private PlaybackInfoUpdated(PlaybackInfo playbackInfo, boolean pooled) {
             super(Type.PLAYBACK_INFO_UPDATED);
             this.playbackInfo = playbackInfo;
+            this.pooled = pooled;
+        }
+
+        /**
+         * Get a reused event, filled with the given values. The caller owns one reference and hands it
+         * over to {@link MessageBus#post(PKEvent)}.
+         */
+        public static PlaybackInfoUpdated obtain(String mediaUrl, long videoBitrate, long audioBitrate, long videoThroughput,
+                                                 long videoWidth, long videoHeight, boolean isLiveStream) {
+            PlaybackInfoUpdated event = null;
+            synchronized (pool) {
+                if (pooledCount > 0) {
+                    event = pool[--pooledCount];
+                    pool[pooledCount] = null;
+                }
+            }
+            if (event == null) {
+                event = new PlaybackInfoUpdated(new PlaybackInfo(null, 0, 0, 0, 0, 0, false), true);
+            }
+            event.playbackInfo.set(mediaUrl, videoBitrate, audioBitrate, videoThroughput, videoWidth, videoHeight, isLiveStream);
+            event.references.set(1);
+            return event;
+        }
+
+        void retain() {
+            if (pooled) {
+                references.incrementAndGet();
+            }
+        }
+
+        void release() {
+            if (pooled && references.decrementAndGet() == 0) {
+                synchronized (pool) {
+                    if (pooledCount < POOL_SIZE) {
+                        pool[pooledCount++] = this;
+                    }
+                }
+            }
+        }
+    }
+
+    public static class QosMetricsUpdated extends PlayerEvent {
+
+        public final QosMetrics qosMetrics;
+
+        public QosMetricsUpdated(QosMetrics qosMetrics) {
+            super(Type.QOS_METRICS_UPDATED);
+            this.qosMetrics = qosMetrics;
         }
     }
 
@@ -135,7 +202,8 @@ public class PlayerEvent implements PKEvent {
         VOLUME_CHANGED, // Sent when volume is changed.
         STOPPED, // sent when stop player api is called
         METADATA_AVAILABLE, // Sent when there is metadata available for this entry.
-        SOURCE_SELECTED // Sent when the source was selected.
+        SOURCE_SELECTED, // Sent when the source was selected.
+        QOS_METRICS_UPDATED // Sent periodically during playback, with the QoS counters of the current media.
     }
 
     @Override
@@ -17,6 +17,7 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.kaltura.playkit.player.PlayerController;
+import com.kaltura.playkit.plugins.ads.AdEvent;
 import com.kaltura.playkit.plugins.playback.KalturaPlaybackRequestAdapter;
 
 import java.util.ArrayList;
@@ -47,15 +48,29 @@ class PlayerLoader extends PlayerDecoratorBase {
     
     private Map<String, LoadedPlugin> loadedPlugins = new LinkedHashMap<>();
     private PlayerController playerController;
+    private PKMediaConfig nextMediaConfig;
 
     PlayerLoader(Context context) {
         this.context = context;
         this.messageBus = new MessageBus();
+
+        // No coalescing by default: every event is delivered, the app opts in with Settings.setEventCoalescing().
+
+        // Telemetry may be dropped when the main thread falls behind; everything else, and STATE_CHANGED and
+        // ERROR in particular, is always delivered.
+        messageBus.setOverflowPolicy(PlayerEvent.Type.PLAYBACK_INFO_UPDATED, MessageBus.OverflowPolicy.DROP_OLDEST);
+        messageBus.setOverflowPolicy(AdEvent.Type.PLAY_HEAD_CHANGED, MessageBus.OverflowPolicy.DROP_OLDEST);
+        messageBus.setOverflowPolicy(AdEvent.Type.AD_PROGRESS, MessageBus.OverflowPolicy.DROP_OLDEST);
+        messageBus.setOverflowPolicy(DiagnosticEvent.Type.SLOW_LISTENER, MessageBus.OverflowPolicy.DROP_OLDEST);
+
+        // Let plugins and listeners that attach after load pick up the current state without polling the player.
+        messageBus.setSticky(PlayerEvent.Type.STATE_CHANGED, PlayerEvent.Type.DURATION_CHANGE, PlayerEvent.Type.TRACKS_AVAILABLE,
+                PlayerEvent.Type.PLAYBACK_INFO_UPDATED, PlayerEvent.Type.SOURCE_SELECTED);
     }
     
     public void load(@NonNull PKPluginConfigs pluginsConfig) {
 
-        playerController = new PlayerController(context);
+        playerController = new PlayerController(context, messageBus);
 
         // By default, set Kaltura decorator.
         KalturaPlaybackRequestAdapter.setup(context, playerController);
@@ -101,6 +116,7 @@ class PlayerLoader extends PlayerDecoratorBase {
 
     @Override
     public void destroy() {
+        recordCall("destroy", null);
         stop();
         releasePlugins();
         releasePlayer();
@@ -108,6 +124,7 @@ class PlayerLoader extends PlayerDecoratorBase {
 
     @Override
     public void onApplicationResumed() {
+        recordCall("onApplicationResumed", null);
         getPlayer().onApplicationResumed();
         for (Map.Entry<String, LoadedPlugin> stringLoadedPluginEntry : loadedPlugins.entrySet()) {
             stringLoadedPluginEntry.getValue().plugin.onApplicationResumed();
@@ -117,6 +134,7 @@ class PlayerLoader extends PlayerDecoratorBase {
 
     @Override
     public void onApplicationPaused() {
+        recordCall("onApplicationPaused", null);
         for (Map.Entry<String, LoadedPlugin> stringLoadedPluginEntry : loadedPlugins.entrySet()) {
             stringLoadedPluginEntry.getValue().plugin.onApplicationPaused();
         }
@@ -129,6 +147,10 @@ class PlayerLoader extends PlayerDecoratorBase {
 
     @Override
     public void prepare(@NonNull PKMediaConfig mediaConfig) {
+        recordCall("prepare", mediaConfig.getMediaEntry() != null ? mediaConfig.getMediaEntry().getId() : null);
+
+        // Sticky events describe the previous media.
+        messageBus.clearStickyEvents();
 
         //If mediaConfig is not valid, playback is impossible, so return.
         //setMedia() is responsible to notify application with exact error that happened.
@@ -143,6 +165,89 @@ class PlayerLoader extends PlayerDecoratorBase {
         }
     }
 
+    @Override
+    public void prepareNext(@NonNull PKMediaConfig mediaConfig) {
+        recordCall("prepareNext", mediaConfig.getMediaEntry() != null ? mediaConfig.getMediaEntry().getId() : null);
+        nextMediaConfig = mediaConfig;
+        super.prepareNext(mediaConfig);
+    }
+
+    @Override
+    public boolean skip() {
+        recordCall("skip", null);
+        if (nextMediaConfig == null) {
+            log.w("skip() called without prepareNext()");
+            return false;
+        }
+        PKMediaConfig mediaConfig = nextMediaConfig;
+        nextMediaConfig = null;
+
+        if (!super.skip()) {
+            // Still playing the current entry; the plugins keep reporting it.
+            return false;
+        }
+
+        for (Map.Entry<String, LoadedPlugin> loadedPluginEntry : loadedPlugins.entrySet()) {
+            loadedPluginEntry.getValue().plugin.onUpdateMedia(mediaConfig);
+        }
+        return true;
+    }
+
+    @Override
+    public void play() {
+        recordCall("play", null);
+        super.play();
+    }
+
+    @Override
+    public void pause() {
+        recordCall("pause", null);
+        super.pause();
+    }
+
+    @Override
+    public void replay() {
+        recordCall("replay", null);
+        super.replay();
+    }
+
+    @Override
+    public void stop() {
+        recordCall("stop", null);
+        super.stop();
+    }
+
+    @Override
+    public void seekTo(long position) {
+        recordCall("seekTo", position);
+        super.seekTo(position);
+    }
+
+    @Override
+    public void setScrubbing(boolean scrubbing) {
+        recordCall("setScrubbing", scrubbing);
+        super.setScrubbing(scrubbing);
+    }
+
+    @Override
+    public void setVolume(float volume) {
+        recordCall("setVolume", volume);
+        super.setVolume(volume);
+    }
+
+    @Override
+    public void changeTrack(String uniqueId) {
+        recordCall("changeTrack", uniqueId);
+        super.changeTrack(uniqueId);
+    }
+
+    private void recordCall(String method, Object argument) {
+        EventJournal journal = messageBus.getEventJournal();
+        if (journal != null) {
+            journal.recordPlayerCall(method, argument);
+        }
+    }
+
     private void releasePlugins() {
         // Unload in the reversed order they were loaded, peeling off the decorators.
         List<Map.Entry<String, LoadedPlugin>> plugins = new ArrayList<>(loadedPlugins.entrySet());
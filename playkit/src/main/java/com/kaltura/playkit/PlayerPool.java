@@ -0,0 +1,165 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps up to maxSize loaded players, each prepared with its own media, for feed-style UIs.
+ * A pooled player buffers the start of its media without a view, and is handed over with
+ * {@link #acquire(String)} when its card becomes visible.
+ * Players are keyed by an app-defined string, e.g. the entry id or the card position.
+ * When the pool is full, the least recently used player is re-prepared for the new key; on memory
+ * pressure, idle players are destroyed. All methods must be called on the main thread.
+ * <p>
+ * The players, and the views they create, use the context the pool was created with, so pass the themed
+ * Activity that shows them (not the application context), and {@link #destroy()} the pool with that Activity.
+ */
+public class PlayerPool implements ComponentCallbacks2 {
+
+    private static final PKLog log = PKLog.get("PlayerPool");
+
+    private final Context context;
+    private final Context applicationContext;
+    private final PKPluginConfigs pluginConfigs;
+    private final int maxSize;
+
+    // Idle players, in access order: the eldest entry is the least recently used.
+    private final LinkedHashMap<String, Player> players = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param context - the Activity that shows the players; their views are created with it.
+     * @param pluginConfigs - plugins to load into each player, or null.
+     * @param maxSize - the maximum number of idle players.
+     */
+    public PlayerPool(@NonNull Context context, @Nullable PKPluginConfigs pluginConfigs, int maxSize) {
+        Assert.checkArgument(maxSize > 0, "maxSize must be positive");
+        this.context = context;
+        this.applicationContext = context.getApplicationContext();
+        this.pluginConfigs = pluginConfigs;
+        this.maxSize = maxSize;
+        // Memory pressure is reported to the application.
+        this.applicationContext.registerComponentCallbacks(this);
+    }
+
+    /**
+     * Prepare a pooled player for the key, so it starts buffering the media. Does nothing if the key
+     * already has a player. The prepared player has no view attached and doesn't play.
+     * @param key - the key to get the player with.
+     * @param mediaConfig - the media to prepare.
+     */
+    public void preload(@NonNull String key, @NonNull PKMediaConfig mediaConfig) {
+        if (players.get(key) != null) {
+            return;
+        }
+
+        Player player;
+        if (players.size() >= maxSize) {
+            // Reuse the least recently used player: its engine and plugins are already loaded.
+            Iterator<Map.Entry<String, Player>> eldest = players.entrySet().iterator();
+            Map.Entry<String, Player> entry = eldest.next();
+            log.d("Reusing the player of " + entry.getKey() + " for " + key);
+            player = entry.getValue();
+            eldest.remove();
+            player.stop();
+        } else {
+            player = PlayKitManager.loadPlayer(context, pluginConfigs);
+        }
+
+        player.prepare(mediaConfig);
+        players.put(key, player);
+    }
+
+    /**
+     * Take the player of the key out of the pool. The caller attaches its view and plays it, and either
+     * destroys it or gives it back with {@link #release(String, Player)}.
+     * @param key - the key the player was preloaded with.
+     * @return - the player, or null if there is none for the key (not preloaded, or evicted).
+     */
+    @Nullable
+    public Player acquire(@NonNull String key) {
+        return players.remove(key);
+    }
+
+    /**
+     * Give an acquired player back to the pool, paused, so it can be acquired again for the same key.
+     * If the pool is full, the least recently used player is destroyed. The caller must detach its view.
+     * @param key - the key of the player's media.
+     * @param player - the player.
+     */
+    public void release(@NonNull String key, @NonNull Player player) {
+        player.pause();
+        Player previous = players.put(key, player);
+        if (previous != null && previous != player) {
+            previous.destroy();
+        }
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Destroy idle players, least recently used first, until at most size remain.
+     * @param size - the number of players to keep.
+     */
+    public void trimToSize(int size) {
+        Iterator<Map.Entry<String, Player>> iterator = players.entrySet().iterator();
+        while (players.size() > size && iterator.hasNext()) {
+            Map.Entry<String, Player> entry = iterator.next();
+            log.d("Evicting the player of " + entry.getKey());
+            iterator.remove();
+            entry.getValue().destroy();
+        }
+    }
+
+    /**
+     * @return - the number of idle players in the pool.
+     */
+    public int size() {
+        return players.size();
+    }
+
+    /**
+     * Destroy all idle players and stop listening to memory pressure. Acquired players are not affected.
+     */
+    public void destroy() {
+        trimToSize(0);
+        applicationContext.unregisterComponentCallbacks(this);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+            // Includes the app going to background, where idle players are of no use anyway.
+            trimToSize(0);
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(players.size() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        trimToSize(0);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+        // Not relevant.
+    }
+}
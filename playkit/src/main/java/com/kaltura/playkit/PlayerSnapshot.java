@@ -0,0 +1,122 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit;
+
+import android.os.SystemClock;
+
+import com.kaltura.playkit.utils.Consts;
+
+/**
+ * Immutable picture of the content playback, published by the player a few times a second.
+ * Unlike the {@link Player} getters, which must be called on the main thread, {@link Player#getSnapshot()}
+ * can be read from any thread (timers, ad SDK callbacks) without locking.
+ */
+public class PlayerSnapshot {
+
+    /**
+     * Snapshot of a player with no media.
+     */
+    public static final PlayerSnapshot EMPTY = new PlayerSnapshot(Consts.POSITION_UNSET, Consts.POSITION_UNSET,
+            Consts.TIME_UNSET, PlayerState.IDLE, false, 0, false, 0);
+
+    private final long position;
+    private final long bufferedPosition;
+    private final long duration;
+    private final PlayerState state;
+    private final boolean isPlaying;
+    private final long videoBitrate;
+    private final boolean isLiveStream;
+    private final long timestampMs;
+
+    public PlayerSnapshot(long position, long bufferedPosition, long duration, PlayerState state, boolean isPlaying,
+                          long videoBitrate, boolean isLiveStream, long timestampMs) {
+        this.position = position;
+        this.bufferedPosition = bufferedPosition;
+        this.duration = duration;
+        this.state = state;
+        this.isPlaying = isPlaying;
+        this.videoBitrate = videoBitrate;
+        this.isLiveStream = isLiveStream;
+        this.timestampMs = timestampMs;
+    }
+
+    /**
+     * @return - the playback position in milliseconds when the snapshot was taken,
+     * or {@link Consts#POSITION_UNSET} if unknown.
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * @return - the playback position now, assuming playback went on at normal speed since the snapshot was taken.
+     */
+    public long getEstimatedPosition() {
+        if (!isPlaying || position < 0) {
+            return position;
+        }
+        long estimated = position + SystemClock.elapsedRealtime() - timestampMs;
+        return duration > 0 && !isLiveStream ? Math.min(estimated, duration) : estimated;
+    }
+
+    /**
+     * @return - the buffered position in milliseconds, or {@link Consts#POSITION_UNSET} if unknown.
+     */
+    public long getBufferedPosition() {
+        return bufferedPosition;
+    }
+
+    /**
+     * @return - the duration in milliseconds, or {@link Consts#TIME_UNSET} if unknown.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public PlayerState getState() {
+        return state;
+    }
+
+    public boolean isPlaying() {
+        return isPlaying;
+    }
+
+    /**
+     * @return - the bitrate of the playing video track, or 0 if unknown.
+     */
+    public long getVideoBitrate() {
+        return videoBitrate;
+    }
+
+    public boolean isLiveStream() {
+        return isLiveStream;
+    }
+
+    /**
+     * @return - when the snapshot was taken, in {@link SystemClock#elapsedRealtime()} time base.
+     */
+    public long getTimestampMs() {
+        return timestampMs;
+    }
+
+    @Override
+    public String toString() {
+        return "PlayerSnapshot{position=" + position +
+                ", bufferedPosition=" + bufferedPosition +
+                ", duration=" + duration +
+                ", state=" + state +
+                ", isPlaying=" + isPlaying +
+                ", videoBitrate=" + videoBitrate +
+                ", isLiveStream=" + isLiveStream + "}";
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit;
+
+import com.kaltura.playkit.utils.Consts;
+
+/**
+ * Playback quality counters of the current media, since it was loaded: dropped frames, audio underruns,
+ * decoder initialization and per-track-type loading. Immutable snapshot, see {@link Player#getQosMetrics()}
+ * and {@link PlayerEvent.QosMetricsUpdated}.
+ */
+public class QosMetrics {
+
+    /**
+     * Loading of one track type. Manifests, muxed segments and other loads are counted under
+     * {@link Consts#TRACK_TYPE_UNKNOWN}.
+     */
+    public static class LoadStats {
+
+        private final int loadCount;
+        private final int errorCount;
+        private final long loadDurationMs;
+        private final long bytesLoaded;
+
+        public LoadStats(int loadCount, int errorCount, long loadDurationMs, long bytesLoaded) {
+            this.loadCount = loadCount;
+            this.errorCount = errorCount;
+            this.loadDurationMs = loadDurationMs;
+            this.bytesLoaded = bytesLoaded;
+        }
+
+        /**
+         * @return - number of completed loads.
+         */
+        public int getLoadCount() {
+            return loadCount;
+        }
+
+        /**
+         * @return - number of failed loads.
+         */
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        /**
+         * @return - total time spent on completed loads, in milliseconds.
+         */
+        public long getLoadDurationMs() {
+            return loadDurationMs;
+        }
+
+        public long getBytesLoaded() {
+            return bytesLoaded;
+        }
+
+        /**
+         * @return - the average load duration in milliseconds, or 0 if nothing was loaded.
+         */
+        public long getAverageLoadDurationMs() {
+            return loadCount == 0 ? 0 : loadDurationMs / loadCount;
+        }
+
+        /**
+         * @return - the average download rate of completed loads in bits per second, or 0 if unknown.
+         */
+        public long getThroughput() {
+            return loadDurationMs == 0 ? 0 : bytesLoaded * 8000 / loadDurationMs;
+        }
+
+        @Override
+        public String toString() {
+            return "loads=" + loadCount + " errors=" + errorCount + " durationMs=" + loadDurationMs + " bytes=" + bytesLoaded;
+        }
+    }
+
+    private final long playingTimeMs;
+    private final int droppedFrames;
+    private final int audioUnderruns;
+    private final String videoDecoderName;
+    private final long videoDecoderInitMs;
+    private final String audioDecoderName;
+    private final long audioDecoderInitMs;
+    private final LoadStats videoLoads;
+    private final LoadStats audioLoads;
+    private final LoadStats textLoads;
+    private final LoadStats otherLoads;
+
+    public QosMetrics(long playingTimeMs, int droppedFrames, int audioUnderruns,
+                      String videoDecoderName, long videoDecoderInitMs, String audioDecoderName, long audioDecoderInitMs,
+                      LoadStats videoLoads, LoadStats audioLoads, LoadStats textLoads, LoadStats otherLoads) {
+        this.playingTimeMs = playingTimeMs;
+        this.droppedFrames = droppedFrames;
+        this.audioUnderruns = audioUnderruns;
+        this.videoDecoderName = videoDecoderName;
+        this.videoDecoderInitMs = videoDecoderInitMs;
+        this.audioDecoderName = audioDecoderName;
+        this.audioDecoderInitMs = audioDecoderInitMs;
+        this.videoLoads = videoLoads;
+        this.audioLoads = audioLoads;
+        this.textLoads = textLoads;
+        this.otherLoads = otherLoads;
+    }
+
+    /**
+     * @return - time spent actually playing (not paused or buffering), in milliseconds.
+     */
+    public long getPlayingTimeMs() {
+        return playingTimeMs;
+    }
+
+    public int getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * @return - dropped video frames per minute of playing time, or 0 before playback started.
+     */
+    public float getDroppedFramesPerMinute() {
+        return playingTimeMs == 0 ? 0 : droppedFrames * 60000f / playingTimeMs;
+    }
+
+    /**
+     * @return - number of times the audio track ran out of data, each one an audible glitch.
+     */
+    public int getAudioUnderruns() {
+        return audioUnderruns;
+    }
+
+    /**
+     * @return - name of the last initialized video decoder, or null if none was.
+     */
+    public String getVideoDecoderName() {
+        return videoDecoderName;
+    }
+
+    /**
+     * @return - initialization time of the last video decoder, or {@link Consts#TIME_UNSET} if none was initialized.
+     */
+    public long getVideoDecoderInitMs() {
+        return videoDecoderInitMs;
+    }
+
+    /**
+     * @return - name of the last initialized audio decoder, or null if none was.
+     */
+    public String getAudioDecoderName() {
+        return audioDecoderName;
+    }
+
+    /**
+     * @return - initialization time of the last audio decoder, or {@link Consts#TIME_UNSET} if none was initialized.
+     */
+    public long getAudioDecoderInitMs() {
+        return audioDecoderInitMs;
+    }
+
+    /**
+     * @param trackType - one of {@link Consts#TRACK_TYPE_VIDEO}, {@link Consts#TRACK_TYPE_AUDIO},
+     *                  {@link Consts#TRACK_TYPE_TEXT} or {@link Consts#TRACK_TYPE_UNKNOWN}.
+     * @return - the loading stats of the track type.
+     */
+    public LoadStats getLoadStats(int trackType) {
+        switch (trackType) {
+            case Consts.TRACK_TYPE_VIDEO:
+                return videoLoads;
+            case Consts.TRACK_TYPE_AUDIO:
+                return audioLoads;
+            case Consts.TRACK_TYPE_TEXT:
+                return textLoads;
+            default:
+                return otherLoads;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "QosMetrics{playingTimeMs=" + playingTimeMs +
+                ", droppedFrames=" + droppedFrames +
+                ", audioUnderruns=" + audioUnderruns +
+                ", videoDecoder=" + videoDecoderName + " (" + videoDecoderInitMs + "ms)" +
+                ", audioDecoder=" + audioDecoderName + " (" + audioDecoderInitMs + "ms)" +
+                ", video=[" + videoLoads + "]" +
+                ", audio=[" + audioLoads + "]" +
+                ", text=[" + textLoads + "]" +
+                ", other=[" + otherLoads + "]}";
+    }
+}
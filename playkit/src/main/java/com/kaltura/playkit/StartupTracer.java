@@ -0,0 +1,124 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit;
+
+import android.os.SystemClock;
+
+import java.util.Arrays;
+
+/**
+ * Records how long each phase of media startup took, from the provider request to the first rendered frame.
+ * Times are taken from {@link SystemClock#elapsedRealtime()}, so they are not affected by wall clock changes.
+ * <p>
+ * The player creates a tracer for every media config it's given, when it sets the media (selects the source)
+ * at the start of {@link Player#prepare(PKMediaConfig)}. Entries preloaded with {@link Player#prepareNext(PKMediaConfig)}
+ * and played with {@link Player#skip()} are not traced. To include the provider request in the timeline,
+ * create one before loading the entry, pass it to the provider and to {@link PKMediaConfig#setStartupTracer(StartupTracer)}.
+ * When startup completes, a single {@link DiagnosticEvent.StartupMetrics} event is sent.
+ */
+public class StartupTracer {
+
+    private static final PKLog log = PKLog.get("StartupTracer");
+
+    public enum Phase {
+        PROVIDER_LOAD,      // MediaEntryProvider.load() until the entry is delivered.
+        SET_MEDIA,          // Player validates the media config and builds the source config.
+        SOURCE_SELECTION,   // SourceSelector picks the source to play (part of SET_MEDIA).
+        ENGINE_CREATION,    // Player engine is obtained/created and handed the source.
+        MANIFEST_LOAD,      // First manifest request until it's loaded.
+        DRM_KEYS,           // DRM session is requested until the keys are loaded.
+        FIRST_READY,        // Engine starts loading until it first reaches READY.
+        FIRST_FRAME         // Engine starts loading until the first video frame is rendered.
+    }
+
+    public static final long NOT_MEASURED = -1;
+
+    private final long[] startTimes = new long[Phase.values().length];
+    private final long[] endTimes = new long[Phase.values().length];
+    private long firstStartTime;
+    private boolean completed;
+    private PKEvent.Listener listener;
+
+    public StartupTracer() {
+        Arrays.fill(startTimes, NOT_MEASURED);
+        Arrays.fill(endTimes, NOT_MEASURED);
+        firstStartTime = NOT_MEASURED;
+    }
+
+    /**
+     * Set the listener that gets the {@link DiagnosticEvent.StartupMetrics} event. The player sets it when
+     * the tracer is attached to a media config, so apps normally don't need to call this.
+     */
+    public synchronized StartupTracer setListener(PKEvent.Listener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    /**
+     * Mark the start of a phase. Ignored if the phase was already started, or if startup has completed.
+     */
+    public synchronized void start(Phase phase) {
+        if (completed || startTimes[phase.ordinal()] != NOT_MEASURED) {
+            return;
+        }
+        long now = SystemClock.elapsedRealtime();
+        startTimes[phase.ordinal()] = now;
+        if (firstStartTime == NOT_MEASURED) {
+            firstStartTime = now;
+        }
+    }
+
+    /**
+     * Mark the end of a phase. Ignored if the phase wasn't started, was already ended, or if startup has completed.
+     */
+    public synchronized void end(Phase phase) {
+        int i = phase.ordinal();
+        if (completed || startTimes[i] == NOT_MEASURED || endTimes[i] != NOT_MEASURED) {
+            return;
+        }
+        endTimes[i] = SystemClock.elapsedRealtime();
+    }
+
+    public synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Finish the timeline and send the metrics. Phases that were started but never ended are reported
+     * as {@link #NOT_MEASURED}. Only the first call has any effect.
+     */
+    public void complete() {
+        DiagnosticEvent.StartupMetrics metrics;
+        PKEvent.Listener listener;
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+
+            long now = SystemClock.elapsedRealtime();
+            long[] durations = new long[startTimes.length];
+            for (int i = 0; i < durations.length; i++) {
+                durations[i] = endTimes[i] != NOT_MEASURED ? endTimes[i] - startTimes[i] : NOT_MEASURED;
+            }
+            long total = firstStartTime != NOT_MEASURED ? now - firstStartTime : NOT_MEASURED;
+            metrics = new DiagnosticEvent.StartupMetrics(durations, total);
+            listener = this.listener;
+        }
+
+        log.d(metrics.toString());
+        if (listener != null) {
+            listener.onEvent(metrics);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.util.LruCache;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Loads scrub-bar preview frames. Positions are snapped to a fixed interval, so neighbouring positions share
+ * one frame; frames are kept in a size-bounded LRU cache, fetched ahead of the scrub position with
+ * {@link #prefetchAround(long, int)}, and requests that are no longer wanted are cancelled.
+ * <p>
+ * Frames come from a {@link UrlProvider}, e.g. {@link com.kaltura.playkit.mediaproviders.ovp.ThumbnailUrlBuilder}
+ * for the Kaltura thumbnail API. All methods must be called on the main thread; listeners are called on it too.
+ */
+public class ThumbnailPreviewLoader {
+
+    private static final PKLog log = PKLog.get("ThumbnailPreviewLoader");
+
+    public static final long DEFAULT_INTERVAL_MS = 5000;
+    public static final int DEFAULT_CACHE_BYTES = 4 * 1024 * 1024;
+
+    private static final int THREAD_COUNT = 2;
+    private static final int CONNECT_TIMEOUT_MS = 5000;
+    private static final int READ_TIMEOUT_MS = 5000;
+
+    public interface UrlProvider {
+        /**
+         * @return the url of the frame at the given position, or null if there is none.
+         */
+        String getThumbnailUrl(long positionMs);
+    }
+
+    public interface Listener {
+        void onThumbnailLoaded(long positionMs, Bitmap thumbnail);
+    }
+
+    private final UrlProvider urlProvider;
+    private final long intervalMs;
+    private final LruCache<Long, Bitmap> cache;
+    private final Map<Long, LoadTask> pendingTasks = new HashMap<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private LoadTask currentRequest;
+
+    public ThumbnailPreviewLoader(@NonNull UrlProvider urlProvider) {
+        this(urlProvider, DEFAULT_INTERVAL_MS, DEFAULT_CACHE_BYTES);
+    }
+
+    /**
+     * @param intervalMs - positions are rounded down to a multiple of this.
+     * @param maxCacheBytes - size limit of the bitmap cache.
+     */
+    public ThumbnailPreviewLoader(@NonNull UrlProvider urlProvider, long intervalMs, int maxCacheBytes) {
+        Assert.checkArgument(intervalMs > 0, "intervalMs must be positive");
+        this.urlProvider = urlProvider;
+        this.intervalMs = intervalMs;
+        this.cache = new LruCache<Long, Bitmap>(maxCacheBytes) {
+            @Override
+            protected int sizeOf(Long key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * @return the cached frame for the position, or null if it's not loaded yet.
+     */
+    public Bitmap getCachedThumbnail(long positionMs) {
+        return cache.get(snap(positionMs));
+    }
+
+    /**
+     * Get the frame for the position. A cached frame is delivered right away; otherwise it's loaded and the
+     * previous request, if still pending and for another frame, is cancelled.
+     */
+    public void requestThumbnail(long positionMs, @NonNull Listener listener) {
+        long slot = snap(positionMs);
+        Bitmap cached = cache.get(slot);
+        if (cached != null) {
+            cancelCurrentRequest();
+            listener.onThumbnailLoaded(slot, cached);
+            return;
+        }
+
+        LoadTask task = pendingTasks.get(slot);
+        if (task == null) {
+            cancelCurrentRequest();
+            task = load(slot);
+            if (task == null) {
+                return;
+            }
+        } else if (task != currentRequest) {
+            cancelCurrentRequest();
+        }
+        task.listener = listener;
+        currentRequest = task;
+    }
+
+    /**
+     * Load the frames of the given number of intervals before and after the position, nearest first, and cancel
+     * pending prefetches that fall outside that window.
+     */
+    public void prefetchAround(long positionMs, int count) {
+        long center = snap(positionMs);
+        long first = center - count * intervalMs;
+        long last = center + count * intervalMs;
+
+        Iterator<Map.Entry<Long, LoadTask>> iterator = pendingTasks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, LoadTask> entry = iterator.next();
+            LoadTask task = entry.getValue();
+            if ((entry.getKey() < first || entry.getKey() > last) && task != currentRequest) {
+                task.cancel();
+                iterator.remove();
+            }
+        }
+
+        maybeLoad(center);
+        for (int i = 1; i <= count; i++) {
+            maybeLoad(center + i * intervalMs);
+            if (center - i * intervalMs >= 0) {
+                maybeLoad(center - i * intervalMs);
+            }
+        }
+    }
+
+    public void cancelAll() {
+        for (LoadTask task : pendingTasks.values()) {
+            task.cancel();
+        }
+        pendingTasks.clear();
+        currentRequest = null;
+    }
+
+    /**
+     * Cancel everything and drop the cache. The loader can't be used afterwards.
+     */
+    public void release() {
+        cancelAll();
+        executor.shutdownNow();
+        cache.evictAll();
+    }
+
+    private long snap(long positionMs) {
+        return Math.max(0, positionMs) / intervalMs * intervalMs;
+    }
+
+    private void cancelCurrentRequest() {
+        if (currentRequest != null) {
+            currentRequest.cancel();
+            pendingTasks.remove(currentRequest.slot);
+            currentRequest = null;
+        }
+    }
+
+    private void maybeLoad(long slot) {
+        if (cache.get(slot) == null && !pendingTasks.containsKey(slot)) {
+            load(slot);
+        }
+    }
+
+    private LoadTask load(long slot) {
+        String url = urlProvider.getThumbnailUrl(slot);
+        if (url == null) {
+            log.w("No thumbnail url for position " + slot);
+            return null;
+        }
+        LoadTask task = new LoadTask(slot, url);
+        pendingTasks.put(slot, task);
+        executor.execute(task);
+        return task;
+    }
+
+    private void onTaskDone(LoadTask task, Bitmap bitmap) {
+        if (task.cancelled) {
+            return;
+        }
+        pendingTasks.remove(task.slot);
+        if (task == currentRequest) {
+            currentRequest = null;
+        }
+        if (bitmap == null) {
+            return;
+        }
+        cache.put(task.slot, bitmap);
+        if (task.listener != null) {
+            task.listener.onThumbnailLoaded(task.slot, bitmap);
+        }
+    }
+
+    private class LoadTask implements Runnable {
+
+        final long slot;
+        final String url;
+        Listener listener;  // Main thread only.
+        volatile boolean cancelled;
+        private volatile HttpURLConnection connection;
+
+        LoadTask(long slot, String url) {
+            this.slot = slot;
+            this.url = url;
+        }
+
+        void cancel() {
+            cancelled = true;
+            HttpURLConnection connection = this.connection;
+            if (connection != null) {
+                // Aborts a blocked read.
+                connection.disconnect();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            Bitmap bitmap = null;
+            try {
+                bitmap = fetch();
+            } catch (IOException e) {
+                if (!cancelled) {
+                    log.w("Failed to load thumbnail " + url + ": " + e.getMessage());
+                }
+            }
+
+            final Bitmap result = bitmap;
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onTaskDone(LoadTask.this, result);
+                }
+            });
+        }
+
+        private Bitmap fetch() throws IOException {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            this.connection = connection;
+            try {
+                if (cancelled) {
+                    return null;
+                }
+                connection.setConnectTimeout(CONNECT_TIMEOUT_MS);
+                connection.setReadTimeout(READ_TIMEOUT_MS);
+                InputStream in = new BufferedInputStream(connection.getInputStream());
+                try {
+                    return BitmapFactory.decodeStream(in);
+                } finally {
+                    in.close();
+                }
+            } finally {
+                connection.disconnect();
+                this.connection = null;
+            }
+        }
+    }
+}
@@ -103,6 +103,9 @@ public class DeferredDrmSessionManager implements DrmSessionManager<FrameworkMed
             return null;
         }
 
+        if (eventLogger != null) {
+            eventLogger.onDrmSessionAcquired();
+        }
         return new SessionWrapper(playbackLooper, drmInitData, drmSessionManager);
     }
 
@@ -14,8 +14,6 @@ package com.kaltura.playkit.drm;
 
 import android.annotation.TargetApi;
 import android.content.Context;
-import android.content.pm.PackageInfo;
-import android.content.pm.PackageManager;
 import android.media.DeniedByServerException;
 import android.media.MediaCryptoException;
 import android.media.MediaDrm;
@@ -24,17 +22,15 @@ import android.media.NotProvisionedException;
 import android.os.Build;
 import android.support.annotation.NonNull;
 
-import com.google.android.exoplayer2.ExoPlayerLibraryInfo;
 import com.google.android.exoplayer2.drm.ExoMediaDrm;
 import com.google.android.exoplayer2.drm.FrameworkMediaDrm;
 import com.google.android.exoplayer2.drm.HttpMediaDrmCallback;
 import com.google.android.exoplayer2.drm.UnsupportedDrmException;
-import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
 import com.google.android.exoplayer2.upstream.HttpDataSource;
-import com.kaltura.playkit.BuildConfig;
 import com.kaltura.playkit.LocalAssetsManager;
 import com.kaltura.playkit.LocalDataStore;
 import com.kaltura.playkit.PKLog;
+import com.kaltura.playkit.player.HttpDataSourceProvider;
 import com.kaltura.playkit.player.MediaSupport;
 
 import java.io.FileNotFoundException;
@@ -318,23 +314,7 @@ class WidevineModularAdapter extends DrmAdapter {
     }
 
     private HttpDataSource.Factory buildDataSourceFactory() {
-        return new DefaultHttpDataSourceFactory(getUserAgent(context), null);
-    }
-
-    private static String getUserAgent(Context context) {
-        String applicationName;
-        try {
-            String packageName = context.getPackageName();
-            PackageInfo info = context.getPackageManager().getPackageInfo(packageName, 0);
-            applicationName = packageName + "/" + info.versionName;
-        } catch (PackageManager.NameNotFoundException e) {
-            applicationName = "?";
-        }
-
-        String sdkName = "PlayKit/" + BuildConfig.VERSION_NAME;
-
-        return sdkName + " " + applicationName + " (Linux;Android " + Build.VERSION.RELEASE
-                + ") " + "ExoPlayerLib/" + ExoPlayerLibraryInfo.VERSION;
+        return HttpDataSourceProvider.getInstance(context).getHttpDataSourceFactory(null);
     }
 
     private class RegisterException extends Exception {
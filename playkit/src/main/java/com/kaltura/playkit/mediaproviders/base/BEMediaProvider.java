@@ -14,12 +14,14 @@ package com.kaltura.playkit.mediaproviders.base;
 
 import com.kaltura.netkit.connect.executor.APIOkRequestsExecutor;
 import com.kaltura.netkit.connect.executor.RequestQueue;
+import com.kaltura.netkit.connect.response.ResultElement;
 import com.kaltura.netkit.utils.Accessories;
 import com.kaltura.netkit.utils.ErrorElement;
 import com.kaltura.netkit.utils.SessionProvider;
 import com.kaltura.playkit.MediaEntryProvider;
 import com.kaltura.playkit.PKLog;
 import com.kaltura.playkit.PKMediaEntry;
+import com.kaltura.playkit.StartupTracer;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
@@ -37,6 +39,7 @@ public abstract class BEMediaProvider implements MediaEntryProvider {
     protected SessionProvider sessionProvider;
     private Future<Void> currentLoad;
     protected final Object syncObject = new Object();
+    private StartupTracer startupTracer;
 
     protected String tag = "BEMediaProvider";
 
@@ -49,6 +52,14 @@ public abstract class BEMediaProvider implements MediaEntryProvider {
 
     protected abstract ErrorElement validateParams();
 
+    /**
+     * Time the next {@link #load(OnMediaLoadCompletion)} as the {@link StartupTracer.Phase#PROVIDER_LOAD} phase.
+     * Pass the same tracer to {@link com.kaltura.playkit.PKMediaConfig#setStartupTracer(StartupTracer)}.
+     */
+    public void setStartupTracer(StartupTracer startupTracer) {
+        this.startupTracer = startupTracer;
+    }
+
     protected abstract Callable<Void> factorNewLoader(OnMediaLoadCompletion completion);
 
     /**
@@ -59,7 +70,22 @@ public abstract class BEMediaProvider implements MediaEntryProvider {
      * @param completion - a callback for handling the result of data fetching flow.
      */
     @Override
-    public void load(final OnMediaLoadCompletion completion) {
+    public void load(OnMediaLoadCompletion completion) {
+
+        final StartupTracer tracer = startupTracer;
+        if (tracer != null) {
+            tracer.start(StartupTracer.Phase.PROVIDER_LOAD);
+            final OnMediaLoadCompletion tracedCompletion = completion;
+            completion = new OnMediaLoadCompletion() {
+                @Override
+                public void onComplete(ResultElement<PKMediaEntry> response) {
+                    tracer.end(StartupTracer.Phase.PROVIDER_LOAD);
+                    if (tracedCompletion != null) {
+                        tracedCompletion.onComplete(response);
+                    }
+                }
+            };
+        }
 
         ErrorElement error = validateParams();
         if (error != null) {
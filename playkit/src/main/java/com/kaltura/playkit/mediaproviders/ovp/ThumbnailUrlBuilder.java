@@ -0,0 +1,101 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit.mediaproviders.ovp;
+
+import android.support.annotation.NonNull;
+
+import com.kaltura.playkit.ThumbnailPreviewLoader;
+
+import static android.text.TextUtils.isEmpty;
+
+/**
+ * Builds Kaltura thumbnail API urls for an entry, one frame per position. Takes the same base url,
+ * partner id and entry id as {@link PlaySourceUrlBuilder}.
+ */
+public class ThumbnailUrlBuilder implements ThumbnailPreviewLoader.UrlProvider {
+
+    public static final int DefWidth = 160;
+
+    private String baseUrl = null;
+    private String partnerId = null;
+    private String entryId = null;
+    private String ks = null;
+    private int width = DefWidth;
+
+    public ThumbnailUrlBuilder setBaseUrl(@NonNull String baseUrl) {
+        this.baseUrl = baseUrl;
+        return this;
+    }
+
+    public ThumbnailUrlBuilder setPartnerId(@NonNull String partnerId) {
+        this.partnerId = partnerId;
+        return this;
+    }
+
+    public ThumbnailUrlBuilder setEntryId(@NonNull String entryId) {
+        this.entryId = entryId;
+        return this;
+    }
+
+    /**
+     * optional - anonymous user don't need to pass ks.
+     *
+     * @param ks
+     * @return
+     */
+    public ThumbnailUrlBuilder setKs(@NonNull String ks) {
+        this.ks = ks;
+        return this;
+    }
+
+    /**
+     * Width of the thumbnails in pixels; the height follows the video's aspect ratio. Defaults to {@link #DefWidth}.
+     *
+     * @param width
+     * @return
+     */
+    public ThumbnailUrlBuilder setWidth(int width) {
+        this.width = width;
+        return this;
+    }
+
+    private boolean assertMandatoryValues() {
+        return !isEmpty(baseUrl) && !isEmpty(partnerId) && !isEmpty(entryId);
+    }
+
+    /**
+     * @param positionMs - the position of the frame in the entry.
+     * @return the url of the frame, or null if a mandatory value is missing.
+     */
+    @Override
+    public String getThumbnailUrl(long positionMs) {
+        if (!assertMandatoryValues()) {
+            return null;
+        }
+
+        StringBuilder thumbnailUrl = new StringBuilder(baseUrl);
+        if (!baseUrl.endsWith("/")) {
+            thumbnailUrl.append("/");
+        }
+        thumbnailUrl.append("p/").append(partnerId).append("/sp/").append(partnerId).append("00")
+                .append("/thumbnail/entry_id/").append(entryId)
+                .append("/width/").append(width)
+                .append("/vid_sec/").append(positionMs / 1000);
+
+        if (!isEmpty(ks)) {
+            thumbnailUrl.append("/ks/").append(ks);
+        }
+
+        return thumbnailUrl.toString();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit.player;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.ConnectivityManager;
+import android.net.NetworkInfo;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import com.google.android.exoplayer2.upstream.BandwidthMeter;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.kaltura.playkit.PKLog;
+
+/**
+ * Process-wide bandwidth estimate, shared by all players. The estimate is persisted per network
+ * (type and name, e.g. the wifi SSID), so a new session on a known network doesn't start ABR from
+ * a cold default. Each player also gets the samples of its own transfers, see {@link #newTransferListener}.
+ */
+class BandwidthEstimator implements BandwidthMeter.EventListener {
+
+    private static final PKLog log = PKLog.get("BandwidthEstimator");
+
+    private static final String SHARED_PREFS_NAME = "PlayKitBandwidthEstimates";
+    private static final long SAVE_INTERVAL_MS = 10000;
+
+    private static BandwidthEstimator instance;
+
+    private final Context context;
+    private final SharedPreferences sharedPrefs;
+    private final DefaultBandwidthMeter bandwidthMeter;
+
+    private long lastSaveTime = Long.MIN_VALUE / 2;
+
+    static synchronized BandwidthEstimator getInstance(Context context) {
+        if (instance == null) {
+            instance = new BandwidthEstimator(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private BandwidthEstimator(Context context) {
+        this.context = context;
+        this.sharedPrefs = context.getSharedPreferences(SHARED_PREFS_NAME, Context.MODE_PRIVATE);
+        this.bandwidthMeter = new DefaultBandwidthMeter(new Handler(Looper.getMainLooper()), this);
+    }
+
+    /**
+     * @return the shared meter, for track selection.
+     */
+    DefaultBandwidthMeter getBandwidthMeter() {
+        return bandwidthMeter;
+    }
+
+    /**
+     * Get the transfer listener for one player's data sources. Its transfers feed the shared estimate,
+     * and are reported to that player only, through its own listener.
+     * @param playerListener - the player's own listener, e.g. a meter that reports its samples.
+     */
+    TransferListener<Object> newTransferListener(TransferListener<Object> playerListener) {
+        return new SplitTransferListener(bandwidthMeter, playerListener);
+    }
+
+    /**
+     * @return the current estimate if there is one, otherwise the one saved for the current network,
+     * or {@link BandwidthMeter#NO_ESTIMATE}.
+     */
+    long getInitialBitrateEstimate() {
+        long estimate = bandwidthMeter.getBitrateEstimate();
+        if (estimate != BandwidthMeter.NO_ESTIMATE) {
+            return estimate;
+        }
+        String networkKey = getNetworkKey();
+        return networkKey != null ? sharedPrefs.getLong(networkKey, BandwidthMeter.NO_ESTIMATE) : BandwidthMeter.NO_ESTIMATE;
+    }
+
+    @Override
+    public void onBandwidthSample(int elapsedMs, long bytes, long bitrate) {
+        maybeSaveEstimate();
+    }
+
+    private void maybeSaveEstimate() {
+        long now = SystemClock.elapsedRealtime();
+        if (now - lastSaveTime < SAVE_INTERVAL_MS) {
+            return;
+        }
+        lastSaveTime = now;
+
+        // The network may have changed since the last save; don't attribute the estimate to the wrong one.
+        String networkKey = getNetworkKey();
+        long estimate = bandwidthMeter.getBitrateEstimate();
+        if (networkKey != null && estimate != BandwidthMeter.NO_ESTIMATE) {
+            sharedPrefs.edit().putLong(networkKey, estimate).apply();
+        }
+    }
+
+    private String getNetworkKey() {
+        try {
+            ConnectivityManager conMgr = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+            NetworkInfo netInfo = conMgr.getActiveNetworkInfo();
+            if (netInfo == null || !netInfo.isConnected()) {
+                return null;
+            }
+            // For wifi the extra info is the SSID, for cellular the APN.
+            return netInfo.getTypeName() + ":" + netInfo.getExtraInfo();
+        } catch (SecurityException e) {
+            // The app doesn't hold ACCESS_NETWORK_STATE; keep the estimate in memory only.
+            log.w("Can't read the network state, bandwidth estimates won't be persisted");
+            return null;
+        }
+    }
+
+    private static class SplitTransferListener implements TransferListener<Object> {
+
+        private final TransferListener<Object> shared;
+        private final TransferListener<Object> player;
+
+        SplitTransferListener(TransferListener<Object> shared, TransferListener<Object> player) {
+            this.shared = shared;
+            this.player = player;
+        }
+
+        @Override
+        public void onTransferStart(Object source, DataSpec dataSpec) {
+            shared.onTransferStart(source, dataSpec);
+            player.onTransferStart(source, dataSpec);
+        }
+
+        @Override
+        public void onBytesTransferred(Object source, int bytesTransferred) {
+            shared.onBytesTransferred(source, bytesTransferred);
+            player.onBytesTransferred(source, bytesTransferred);
+        }
+
+        @Override
+        public void onTransferEnd(Object source) {
+            shared.onTransferEnd(source);
+            player.onTransferEnd(source);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit.player;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.LoadControl;
+import com.google.android.exoplayer2.Renderer;
+import com.google.android.exoplayer2.source.TrackGroupArray;
+import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
+import com.google.android.exoplayer2.upstream.Allocator;
+import com.google.android.exoplayer2.upstream.DefaultAllocator;
+import com.google.android.exoplayer2.util.Util;
+import com.kaltura.playkit.Assert;
+import com.kaltura.playkit.PKBufferProfile;
+
+/**
+ * Same buffering logic as ExoPlayer's DefaultLoadControl, with limits taken from a {@link PKBufferProfile}
+ * that may be replaced while playing. Called on the playback thread, except for {@link #setBufferProfile}.
+ */
+class BufferProfileLoadControl implements LoadControl {
+
+    // Snapshot of a profile in microseconds, replaced as a whole.
+    private static final class Limits {
+        final long minBufferUs;
+        final long maxBufferUs;
+        final long bufferForPlaybackUs;
+        final long bufferForPlaybackAfterRebufferUs;
+        final int targetBufferBytes;
+
+        Limits(PKBufferProfile profile) {
+            Assert.checkArgument(profile.getMinBufferMs() <= profile.getMaxBufferMs(), "minBufferMs must not exceed maxBufferMs");
+            minBufferUs = profile.getMinBufferMs() * 1000;
+            maxBufferUs = profile.getMaxBufferMs() * 1000;
+            bufferForPlaybackUs = profile.getBufferForPlaybackMs() * 1000;
+            bufferForPlaybackAfterRebufferUs = profile.getBufferForPlaybackAfterRebufferMs() * 1000;
+            targetBufferBytes = profile.getTargetBufferBytes();
+        }
+    }
+
+    private final DefaultAllocator allocator = new DefaultAllocator(true, C.DEFAULT_BUFFER_SEGMENT_SIZE);
+
+    private volatile Limits limits;
+    private volatile int tracksBufferBytes;
+    private boolean isBuffering;
+
+    BufferProfileLoadControl(PKBufferProfile profile) {
+        limits = new Limits(profile);
+    }
+
+    void setBufferProfile(PKBufferProfile profile) {
+        limits = new Limits(profile);
+        updateTargetBufferSize();
+    }
+
+    @Override
+    public void onPrepared() {
+        reset(false);
+    }
+
+    @Override
+    public void onTracksSelected(Renderer[] renderers, TrackGroupArray trackGroups, TrackSelectionArray trackSelections) {
+        int bufferBytes = 0;
+        for (int i = 0; i < renderers.length; i++) {
+            if (trackSelections.get(i) != null) {
+                bufferBytes += Util.getDefaultBufferSize(renderers[i].getTrackType());
+            }
+        }
+        tracksBufferBytes = bufferBytes;
+        updateTargetBufferSize();
+    }
+
+    @Override
+    public void onStopped() {
+        reset(true);
+    }
+
+    @Override
+    public void onReleased() {
+        reset(true);
+    }
+
+    @Override
+    public Allocator getAllocator() {
+        return allocator;
+    }
+
+    @Override
+    public boolean shouldStartPlayback(long bufferedDurationUs, boolean rebuffering) {
+        Limits limits = this.limits;
+        long minBufferDurationUs = rebuffering ? limits.bufferForPlaybackAfterRebufferUs : limits.bufferForPlaybackUs;
+        return minBufferDurationUs <= 0 || bufferedDurationUs >= minBufferDurationUs;
+    }
+
+    @Override
+    public boolean shouldContinueLoading(long bufferedDurationUs) {
+        Limits limits = this.limits;
+        if (bufferedDurationUs > limits.maxBufferUs) {
+            isBuffering = false;
+        } else if (bufferedDurationUs < limits.minBufferUs) {
+            isBuffering = true;
+        } else {
+            // Between the watermarks: keep going only until the byte target is reached.
+            isBuffering = isBuffering && allocator.getTotalBytesAllocated() < getTargetBufferSize(limits);
+        }
+        return isBuffering;
+    }
+
+    private int getTargetBufferSize(Limits limits) {
+        return limits.targetBufferBytes > 0 ? limits.targetBufferBytes : tracksBufferBytes;
+    }
+
+    private void updateTargetBufferSize() {
+        allocator.setTargetBufferSize(getTargetBufferSize(limits));
+    }
+
+    private void reset(boolean resetAllocator) {
+        tracksBufferBytes = 0;
+        isBuffering = false;
+        if (resetAllocator) {
+            allocator.reset();
+        }
+    }
+}
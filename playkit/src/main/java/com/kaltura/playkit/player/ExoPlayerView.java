@@ -122,6 +122,24 @@ class ExoPlayerView extends PlayerView implements SimpleExoPlayer.VideoListener,
         player.setTextOutput(this);
     }
 
+    /**
+     * Let go of the video surface but keep the player, with its loaded media and buffers.
+     */
+    void detachVideoSurface() {
+        if (player != null) {
+            player.setVideoSurface(null);
+        }
+    }
+
+    /**
+     * Give the video surface back to the player after {@link #detachVideoSurface()}.
+     */
+    void attachVideoSurface() {
+        if (player != null) {
+            applyVideoSurface();
+        }
+    }
+
     private SubtitleView initSubtitleLayout() {
         SubtitleView subtitleLayout = new SubtitleView(getContext());
         subtitleLayout.setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
@@ -12,19 +12,18 @@
 
 package com.kaltura.playkit.player;
 
+import android.annotation.TargetApi;
 import android.content.Context;
-import android.content.pm.PackageInfo;
-import android.content.pm.PackageManager;
+import android.media.PlaybackParams;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 
-import com.google.android.exoplayer2.DefaultLoadControl;
 import com.google.android.exoplayer2.ExoPlaybackException;
 import com.google.android.exoplayer2.ExoPlayer;
 import com.google.android.exoplayer2.ExoPlayerFactory;
-import com.google.android.exoplayer2.ExoPlayerLibraryInfo;
 import com.google.android.exoplayer2.SimpleExoPlayer;
 import com.google.android.exoplayer2.Timeline;
 import com.google.android.exoplayer2.extractor.DefaultExtractorsFactory;
@@ -35,6 +34,7 @@ import com.google.android.exoplayer2.source.MediaSource;
 import com.google.android.exoplayer2.source.TrackGroupArray;
 import com.google.android.exoplayer2.source.dash.DashMediaSource;
 import com.google.android.exoplayer2.source.dash.DefaultDashChunkSource;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
 import com.google.android.exoplayer2.source.hls.HlsMediaSource;
 import com.google.android.exoplayer2.trackselection.AdaptiveTrackSelection;
 import com.google.android.exoplayer2.trackselection.DefaultTrackSelector;
@@ -44,16 +44,15 @@ import com.google.android.exoplayer2.upstream.BandwidthMeter;
 import com.google.android.exoplayer2.upstream.DataSource;
 import com.google.android.exoplayer2.upstream.DataSource.Factory;
 import com.google.android.exoplayer2.upstream.DefaultBandwidthMeter;
-import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
-import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
-import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
 import com.google.android.exoplayer2.upstream.HttpDataSource;
-import com.kaltura.playkit.BuildConfig;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.kaltura.playkit.PKBufferProfile;
 import com.kaltura.playkit.PKLog;
 import com.kaltura.playkit.PKMediaFormat;
 import com.kaltura.playkit.PlaybackInfo;
 import com.kaltura.playkit.PlayerEvent;
 import com.kaltura.playkit.PlayerState;
+import com.kaltura.playkit.QosMetrics;
 import com.kaltura.playkit.drm.DeferredDrmSessionManager;
 import com.kaltura.playkit.player.PlayerController.EventListener;
 import com.kaltura.playkit.player.PlayerController.StateChangedListener;
@@ -74,7 +73,12 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
 
     private static final PKLog log = PKLog.get("ExoPlayerWrapper");
 
-    private DefaultBandwidthMeter bandwidthMeter;
+    private BandwidthEstimator bandwidthEstimator;
+    private DefaultBandwidthMeter bandwidthMeter; // Shared by all players, for track selection.
+    private DefaultBandwidthMeter playerBandwidthMeter; // Measures this player's transfers only.
+    private TransferListener<Object> transferListener;
+    private BufferProfileLoadControl loadControl;
+    private PKBufferProfile bufferProfile = PKBufferProfile.defaults();
 
     private EventLogger eventLogger;
     private EventListener eventListener;
@@ -92,16 +96,36 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
     private PlayerState currentState = PlayerState.IDLE;
     private PlayerState previousState;
 
+    private HttpDataSourceProvider httpDataSourceProvider;
     private Factory mediaDataSourceFactory;
+    private MediaSegmentCache segmentCache;
     private Handler mainHandler = new Handler(Looper.getMainLooper());
     private PKError currentError = null;
 
     private boolean isSeeking = false;
+
+    // Scrubbing: seeks outside the buffer are coalesced to the latest target and issued at most every SCRUB_SEEK_INTERVAL_MS.
+    private static final long SCRUB_SEEK_INTERVAL_MS = 250;
+    private boolean isScrubbing = false;
+    private float playbackSpeed = 1f;
+    private long scrubTarget = Consts.TIME_UNSET;
+    private long pendingScrubPosition = Consts.TIME_UNSET;
+    private long lastScrubSeekTime;
+    private Runnable scrubSeekRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (player != null && pendingScrubPosition != Consts.TIME_UNSET) {
+                lastScrubSeekTime = SystemClock.elapsedRealtime();
+                player.seekTo(pendingScrubPosition);
+            }
+            pendingScrubPosition = Consts.TIME_UNSET;
+        }
+    };
     private boolean shouldRestorePlayerToPreviousState = false;
 
     private int playerWindow;
     private long playerPosition = Consts.TIME_UNSET;
-    private Uri lastPlayedSource;
+    private String lastPlayedSource;
     private Timeline.Window window;
     private boolean shouldGetTracksInfo;
     private boolean shouldResetPlayerPosition;
@@ -121,8 +145,11 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
 
     ExoPlayerWrapper(Context context) {
         this.context = context;
-        bandwidthMeter = new DefaultBandwidthMeter(mainHandler, this);
-        mediaDataSourceFactory = buildDataSourceFactory(true);
+        bandwidthEstimator = BandwidthEstimator.getInstance(context);
+        bandwidthMeter = bandwidthEstimator.getBandwidthMeter();
+        playerBandwidthMeter = new DefaultBandwidthMeter(mainHandler, this);
+        transferListener = bandwidthEstimator.newTransferListener(playerBandwidthMeter);
+        httpDataSourceProvider = HttpDataSourceProvider.getInstance(context);
         exoPlayerView = new ExoPlayerView(context);
     }
 
@@ -130,8 +157,9 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
         eventLogger = new EventLogger();
 
         DefaultTrackSelector trackSelector = initializeTrackSelector();
+        loadControl = new BufferProfileLoadControl(bufferProfile);
         drmSessionManager = new DeferredDrmSessionManager(mainHandler, eventLogger, buildHttpDataSourceFactory(false));
-        player = ExoPlayerFactory.newSimpleInstance(context, trackSelector, new DefaultLoadControl(), drmSessionManager);
+        player = ExoPlayerFactory.newSimpleInstance(context, trackSelector, loadControl, drmSessionManager);
         window = new Timeline.Window();
         setPlayerListeners();
         exoPlayerView.setPlayer(player);
@@ -150,8 +178,19 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
 
     private DefaultTrackSelector initializeTrackSelector() {
 
-        TrackSelection.Factory trackSelectionFactory =
-                new AdaptiveTrackSelection.Factory(bandwidthMeter);
+        TrackSelection.Factory trackSelectionFactory;
+        long initialBitrateEstimate = bandwidthEstimator.getInitialBitrateEstimate();
+        if (initialBitrateEstimate != BandwidthMeter.NO_ESTIMATE) {
+            // Start from what this network delivered before, scaled the way live estimates are.
+            int maxInitialBitrate = (int) Math.min(Integer.MAX_VALUE, (long) (initialBitrateEstimate * AdaptiveTrackSelection.DEFAULT_BANDWIDTH_FRACTION));
+            trackSelectionFactory = new AdaptiveTrackSelection.Factory(bandwidthMeter, maxInitialBitrate,
+                    AdaptiveTrackSelection.DEFAULT_MIN_DURATION_FOR_QUALITY_INCREASE_MS,
+                    AdaptiveTrackSelection.DEFAULT_MAX_DURATION_FOR_QUALITY_DECREASE_MS,
+                    AdaptiveTrackSelection.DEFAULT_MIN_DURATION_TO_RETAIN_AFTER_DISCARD_MS,
+                    AdaptiveTrackSelection.DEFAULT_BANDWIDTH_FRACTION);
+        } else {
+            trackSelectionFactory = new AdaptiveTrackSelection.Factory(bandwidthMeter);
+        }
         DefaultTrackSelector trackSelector = new DefaultTrackSelector(trackSelectionFactory);
         trackSelectionHelper = new TrackSelectionHelper(trackSelector, trackSelectionFactory, lastSelectedTrackIds);
         trackSelectionHelper.setTracksInfoListener(tracksInfoListener);
@@ -163,9 +202,13 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
         //reset metadata on prepare.
         metadataList.clear();
         drmSessionManager.setMediaSource(sourceConfig.mediaSource);
+        // Built per load, so provider timeouts and the segment cache set since the last load apply.
+        mediaDataSourceFactory = buildDataSourceFactory(true);
+        eventLogger.setStartupTracer(sourceConfig.startupTracer);
+        eventLogger.resetQosMetrics();
 
         shouldGetTracksInfo = true;
-        this.lastPlayedSource = sourceConfig.getUrl();
+        this.lastPlayedSource = sourceConfig.getUrl().toString();
         trackSelectionHelper.setCea608CaptionsEnabled(sourceConfig.cea608CaptionsEnabled);
 
         MediaSource mediaSource = buildExoMediaSource(sourceConfig);
@@ -191,11 +234,18 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
                         mainHandler, eventLogger);
 
             case dash:
+                DashManifest prefetchedManifest = ManifestCache.getInstance().getDashManifest(uri);
+                if (prefetchedManifest != null) {
+                    log.d("Using prefetched DASH manifest");
+                    return new DashMediaSource(prefetchedManifest, new DefaultDashChunkSource.Factory(mediaDataSourceFactory),
+                            mainHandler, eventLogger);
+                }
                 return new DashMediaSource(uri, buildDataSourceFactory(false),
                         new DefaultDashChunkSource.Factory(mediaDataSourceFactory), mainHandler, eventLogger);
 
             case hls:
-                return new HlsMediaSource(uri, mediaDataSourceFactory, mainHandler, eventLogger);
+                // Serves the playlist from memory if it was prefetched.
+                return new HlsMediaSource(uri, ManifestCache.getInstance().wrap(mediaDataSourceFactory), mainHandler, eventLogger);
 
             default:
                 throw new IllegalStateException("Unsupported type: " + format);
@@ -205,41 +255,27 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
     /**
      * Returns a new DataSource factory.
      *
-     * @param useBandwidthMeter Whether to set {@link #bandwidthMeter} as a listener to the new
-     *                          DataSource factory.
+     * @param useBandwidthMeter Whether to set {@link #transferListener} as a listener to the new
+     *                          DataSource factory. Media factories also read through the {@link #segmentCache}, if set.
      * @return A new DataSource factory.
      */
     private DataSource.Factory buildDataSourceFactory(boolean useBandwidthMeter) {
-        return new DefaultDataSourceFactory(context, useBandwidthMeter ? bandwidthMeter : null,
-                buildHttpDataSourceFactory(useBandwidthMeter));
+        DataSource.Factory factory = httpDataSourceProvider.getDataSourceFactory(useBandwidthMeter ? transferListener : null);
+        if (useBandwidthMeter && segmentCache != null) {
+            factory = segmentCache.wrap(factory);
+        }
+        return factory;
     }
 
     /**
      * Returns a new HttpDataSource factory.
      *
-     * @param useBandwidthMeter Whether to set {@link #bandwidthMeter} as a listener to the new
+     * @param useBandwidthMeter Whether to set {@link #transferListener} as a listener to the new
      *                          DataSource factory.
      * @return A new HttpDataSource factory.
      */
     private HttpDataSource.Factory buildHttpDataSourceFactory(boolean useBandwidthMeter) {
-        return new DefaultHttpDataSourceFactory(getUserAgent(context), useBandwidthMeter ? bandwidthMeter : null, DefaultHttpDataSource.DEFAULT_CONNECT_TIMEOUT_MILLIS,
-                DefaultHttpDataSource.DEFAULT_READ_TIMEOUT_MILLIS, false);
-    }
-
-    private static String getUserAgent(Context context) {
-        String applicationName;
-        try {
-            String packageName = context.getPackageName();
-            PackageInfo info = context.getPackageManager().getPackageInfo(packageName, 0);
-            applicationName = packageName + "/" + info.versionName;
-        } catch (PackageManager.NameNotFoundException e) {
-            applicationName = "?";
-        }
-
-        String sdkName = "PlayKit/" + BuildConfig.VERSION_NAME;
-
-        return sdkName + " " + applicationName + " (Linux;Android " + Build.VERSION.RELEASE
-                + ") " + "ExoPlayerLib/" + ExoPlayerLibraryInfo.VERSION;
+        return httpDataSourceProvider.getHttpDataSourceFactory(useBandwidthMeter ? transferListener : null);
     }
 
 
@@ -297,7 +333,8 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
                 log.d("onPlayerStateChanged. READY. playWhenReady => " + playWhenReady);
                 changeState(PlayerState.READY);
 
-                if (isSeeking) {
+                // While scrubbing, SEEKED waits for the final seek.
+                if (isSeeking && !isScrubbing) {
                     isSeeking = false;
                     sendDistinctEvent(PlayerEvent.Type.SEEKED);
                 }
@@ -466,11 +503,88 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
             log.w("Attempt to invoke 'seekTo()' on null instance of the exoplayer");
             return;
         }
+        if (isScrubbing) {
+            scrubTo(position);
+            return;
+        }
         isSeeking = true;
         sendDistinctEvent(PlayerEvent.Type.SEEKING);
         player.seekTo(position);
     }
 
+    private void scrubTo(long position) {
+        if (!isSeeking) {
+            isSeeking = true;
+            sendDistinctEvent(PlayerEvent.Type.SEEKING);
+        }
+        scrubTarget = position;
+
+        // Seeking inside the buffer doesn't cancel any load; show it right away.
+        if (position >= player.getCurrentPosition() && position <= player.getBufferedPosition()) {
+            mainHandler.removeCallbacks(scrubSeekRunnable);
+            pendingScrubPosition = Consts.TIME_UNSET;
+            player.seekTo(position);
+            return;
+        }
+
+        boolean scheduled = pendingScrubPosition != Consts.TIME_UNSET;
+        pendingScrubPosition = position;
+        if (!scheduled) {
+            long delay = lastScrubSeekTime + SCRUB_SEEK_INTERVAL_MS - SystemClock.elapsedRealtime();
+            mainHandler.postDelayed(scrubSeekRunnable, Math.max(0, delay));
+        }
+    }
+
+    @Override
+    public void setScrubbing(boolean scrubbing) {
+        if (isScrubbing == scrubbing) {
+            return;
+        }
+        isScrubbing = scrubbing;
+        if (scrubbing) {
+            scrubTarget = Consts.TIME_UNSET;
+            return;
+        }
+
+        mainHandler.removeCallbacks(scrubSeekRunnable);
+        pendingScrubPosition = Consts.TIME_UNSET;
+        if (player == null) {
+            return;
+        }
+        if (scrubTarget != Consts.TIME_UNSET) {
+            // The one seek that counts: SEEKED is sent when it's done.
+            player.seekTo(scrubTarget);
+            scrubTarget = Consts.TIME_UNSET;
+        } else if (isSeeking && player.getPlaybackState() == ExoPlayer.STATE_READY) {
+            // No seek during the gesture, but one from before it completed meanwhile and its SEEKED was held back.
+            // If that seek is still buffering, its READY sends SEEKED.
+            isSeeking = false;
+            sendDistinctEvent(PlayerEvent.Type.SEEKED);
+        }
+    }
+
+    @Override
+    public boolean isLiveStream() {
+        return player != null && player.isCurrentWindowDynamic();
+    }
+
+    @Override
+    public boolean setPlaybackSpeed(float speed) {
+        if (player == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+            return false;
+        }
+        if (speed != playbackSpeed) {
+            applyPlaybackSpeed(speed);
+        }
+        return true;
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private void applyPlaybackSpeed(float speed) {
+        player.setPlaybackParams(new PlaybackParams().setSpeed(speed));
+        playbackSpeed = speed;
+    }
+
     @Override
     public long getDuration() {
         return player == null ? Consts.TIME_UNSET : player.getDuration();
@@ -492,6 +606,7 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
             this.eventLogger = null;
             player.release();
             player = null;
+            playbackSpeed = 1f;
             trackSelectionHelper.release();
             trackSelectionHelper = null;
             eventLogger = null;
@@ -499,6 +614,20 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
         shouldRestorePlayerToPreviousState = true;
     }
 
+    /**
+     * Pause and detach the video surface, keeping ExoPlayer, the media source, buffers and DRM session.
+     */
+    void suspend() {
+        if (player != null) {
+            player.setPlayWhenReady(false);
+        }
+        exoPlayerView.detachVideoSurface();
+    }
+
+    void unsuspend() {
+        exoPlayerView.attachVideoSurface();
+    }
+
     @Override
     public void restore() {
         log.d("resume");
@@ -528,6 +657,48 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
         playerPosition = Consts.TIME_UNSET;
     }
 
+    @Override
+    public void reset() {
+        log.d("reset");
+        if (player != null) {
+            player.setPlayWhenReady(false);
+            player.stop();
+            if (playbackSpeed != 1f) {
+                applyPlaybackSpeed(1f);
+            }
+        }
+        if (eventLogger != null) {
+            eventLogger.setStartupTracer(null);
+        }
+        metadataList.clear();
+        tracks = null;
+        currentError = null;
+        currentEvent = null;
+        currentState = PlayerState.IDLE;
+        previousState = null;
+        isSeeking = false;
+        isScrubbing = false;
+        scrubTarget = Consts.TIME_UNSET;
+        pendingScrubPosition = Consts.TIME_UNSET;
+        mainHandler.removeCallbacks(scrubSeekRunnable);
+        shouldRestorePlayerToPreviousState = false;
+        lastPlayedSource = null;
+        playerPosition = Consts.TIME_UNSET;
+    }
+
+    @Override
+    public void setSegmentCache(MediaSegmentCache segmentCache) {
+        this.segmentCache = segmentCache;
+    }
+
+    @Override
+    public void setBufferProfile(PKBufferProfile bufferProfile) {
+        this.bufferProfile = bufferProfile;
+        if (loadControl != null) {
+            loadControl.setBufferProfile(bufferProfile);
+        }
+    }
+
     @Override
     public void changeTrack(String uniqueId) {
         if (trackSelectionHelper == null) {
@@ -610,10 +781,26 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
 
     @Override
     public PlaybackInfo getPlaybackInfo() {
-        return new PlaybackInfo(lastPlayedSource.toString(),
+        return new PlaybackInfo(lastPlayedSource,
+                trackSelectionHelper.getCurrentVideoBitrate(),
+                trackSelectionHelper.getCurrentAudioBitrate(),
+                playerBandwidthMeter.getBitrateEstimate(),
+                trackSelectionHelper.getCurrentVideoWidth(),
+                trackSelectionHelper.getCurrentVideoHeight(),
+                player.isCurrentWindowDynamic());
+    }
+
+    @Override
+    public QosMetrics getQosMetrics() {
+        return eventLogger == null ? null : eventLogger.getQosMetrics();
+    }
+
+    @Override
+    public PlayerEvent.PlaybackInfoUpdated obtainPlaybackInfoUpdated() {
+        return PlayerEvent.PlaybackInfoUpdated.obtain(lastPlayedSource,
                 trackSelectionHelper.getCurrentVideoBitrate(),
                 trackSelectionHelper.getCurrentAudioBitrate(),
-                bandwidthMeter.getBitrateEstimate(),
+                playerBandwidthMeter.getBitrateEstimate(),
                 trackSelectionHelper.getCurrentVideoWidth(),
                 trackSelectionHelper.getCurrentVideoHeight(),
                 player.isCurrentWindowDynamic());
@@ -651,6 +838,10 @@ class ExoPlayerWrapper implements PlayerEngine, ExoPlayer.EventListener, Metadat
         return metadataList;
     }
 
+    PlayerState getCurrentState() {
+        return currentState;
+    }
+
     private TrackSelectionHelper.TracksInfoListener initTracksInfoListener() {
         return new TrackSelectionHelper.TracksInfoListener() {
             @Override
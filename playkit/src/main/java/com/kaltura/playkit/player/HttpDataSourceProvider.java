@@ -0,0 +1,133 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit.player;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+
+import com.google.android.exoplayer2.ExoPlayerLibraryInfo;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DefaultDataSourceFactory;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSource;
+import com.google.android.exoplayer2.upstream.DefaultHttpDataSourceFactory;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.google.android.exoplayer2.upstream.TransferListener;
+import com.kaltura.playkit.BuildConfig;
+import com.kaltura.playkit.PKLog;
+
+/**
+ * Process-wide source of HTTP data sources for manifests, segments and DRM licenses, shared by all players
+ * and by offline registration. Everything goes through the platform HttpURLConnection, whose keep-alive
+ * connection pool is process-wide; using one user agent and one set of timeouts everywhere lets requests reuse
+ * warm TLS connections instead of handshaking again on startup and on ABR switches.
+ * The pool itself belongs to the app and is left as configured, see {@link #setGlobalMaxIdleConnections(int)}.
+ */
+public class HttpDataSourceProvider {
+
+    private static final PKLog log = PKLog.get("HttpDataSourceProvider");
+
+    public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 10;
+
+    private static HttpDataSourceProvider instance;
+
+    private final Context context;
+    private final String userAgent;
+    private volatile int connectTimeoutMs = DefaultHttpDataSource.DEFAULT_CONNECT_TIMEOUT_MILLIS;
+    private volatile int readTimeoutMs = DefaultHttpDataSource.DEFAULT_READ_TIMEOUT_MILLIS;
+    private volatile boolean allowCrossProtocolRedirects = false;
+
+    public static synchronized HttpDataSourceProvider getInstance(Context context) {
+        if (instance == null) {
+            instance = new HttpDataSourceProvider(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private HttpDataSourceProvider(Context context) {
+        this.context = context;
+        this.userAgent = buildUserAgent(context);
+    }
+
+    /**
+     * Opt-in: turn on keep-alive and set how many idle connections the platform pool keeps, e.g.
+     * {@link #DEFAULT_MAX_IDLE_CONNECTIONS}, enough for manifest, audio, video and license hosts.
+     * Note! This sets the http.keepAlive and http.maxConnections system properties, so it applies to every
+     * HttpURLConnection of the app, not only to the player. The pool reads them when it's created, so call it
+     * before the process makes its first HttpURLConnection request.
+     * @param maxIdleConnections - the pool size.
+     */
+    public static void setGlobalMaxIdleConnections(int maxIdleConnections) {
+        System.setProperty("http.keepAlive", "true");
+        System.setProperty("http.maxConnections", String.valueOf(maxIdleConnections));
+    }
+
+    /**
+     * Applies to data sources created after the call.
+     */
+    public HttpDataSourceProvider setConnectTimeoutMs(int connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+        return this;
+    }
+
+    /**
+     * Applies to data sources created after the call.
+     */
+    public HttpDataSourceProvider setReadTimeoutMs(int readTimeoutMs) {
+        this.readTimeoutMs = readTimeoutMs;
+        return this;
+    }
+
+    public HttpDataSourceProvider setAllowCrossProtocolRedirects(boolean allowCrossProtocolRedirects) {
+        this.allowCrossProtocolRedirects = allowCrossProtocolRedirects;
+        return this;
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    /**
+     * @param listener - notified of transfers (usually the bandwidth meter), or null.
+     * @return a factory for HTTP-only requests, such as DRM licenses.
+     */
+    public HttpDataSource.Factory getHttpDataSourceFactory(TransferListener<? super DataSource> listener) {
+        return new DefaultHttpDataSourceFactory(userAgent, listener, connectTimeoutMs, readTimeoutMs, allowCrossProtocolRedirects);
+    }
+
+    /**
+     * @param listener - notified of transfers (usually the bandwidth meter), or null.
+     * @return a factory for media requests, which may also be local files or assets.
+     */
+    public DataSource.Factory getDataSourceFactory(TransferListener<? super DataSource> listener) {
+        return new DefaultDataSourceFactory(context, listener, getHttpDataSourceFactory(listener));
+    }
+
+    private static String buildUserAgent(Context context) {
+        String applicationName;
+        try {
+            String packageName = context.getPackageName();
+            PackageInfo info = context.getPackageManager().getPackageInfo(packageName, 0);
+            applicationName = packageName + "/" + info.versionName;
+        } catch (PackageManager.NameNotFoundException e) {
+            log.w("Can't get application version: " + e.getMessage());
+            applicationName = "?";
+        }
+
+        String sdkName = "PlayKit/" + BuildConfig.VERSION_NAME;
+
+        return sdkName + " " + applicationName + " (Linux;Android " + Build.VERSION.RELEASE
+                + ") " + "ExoPlayerLib/" + ExoPlayerLibraryInfo.VERSION;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit.player;
+
+import com.kaltura.playkit.DiagnosticEvent;
+import com.kaltura.playkit.PKLog;
+import com.kaltura.playkit.utils.Consts;
+
+/**
+ * Holds live playback at a target distance from the live edge. Small drifts are corrected by playing
+ * slightly faster or slower; drifts beyond the limit (typically after a rebuffer) jump back to the target.
+ * {@link #update(PlayerEngine)} is called periodically by the player.
+ */
+class LiveLatencyController {
+
+    private static final PKLog log = PKLog.get("LiveLatencyController");
+
+    static final long UPDATE_INTERVAL_MS = 1000;
+
+    // Hardly noticeable, and makes up a second of drift in about 20 seconds.
+    private static final float CATCH_UP_SPEED = 1.05f;
+    private static final float FALL_BACK_SPEED = 0.95f;
+    private static final long TOLERANCE_MS = 500;
+
+    private long targetOffsetMs;
+    private long maxDriftMs;
+    private PlayerEngine engine;
+    private float currentSpeed = 1f;
+
+    void setTarget(long targetOffsetMs, long maxDriftMs) {
+        this.targetOffsetMs = targetOffsetMs;
+        this.maxDriftMs = maxDriftMs;
+    }
+
+    boolean isEnabled() {
+        return targetOffsetMs > 0;
+    }
+
+    /**
+     * Correct the latency of the engine's current playback.
+     * @return the latency to report, or null if the engine isn't playing a live stream.
+     */
+    DiagnosticEvent.LiveLatency update(PlayerEngine engine) {
+        if (engine != this.engine) {
+            // A different (or reset) engine plays at normal speed.
+            this.engine = engine;
+            currentSpeed = 1f;
+        }
+
+        long duration = engine.getDuration();
+        long position = engine.getCurrentPosition();
+        if (!engine.isLiveStream() || duration == Consts.TIME_UNSET || position < 0) {
+            setSpeed(1f);
+            return null;
+        }
+
+        long latency = duration - position;
+        if (!engine.isPlaying()) {
+            setSpeed(1f);
+            return new DiagnosticEvent.LiveLatency(latency, targetOffsetMs, currentSpeed);
+        }
+
+        long drift = latency - targetOffsetMs;
+        if (drift > maxDriftMs) {
+            log.d("Live latency " + latency + "ms is too far from target " + targetOffsetMs + "ms, jumping");
+            setSpeed(1f);
+            engine.seekTo(Math.max(0, duration - targetOffsetMs));
+            return new DiagnosticEvent.LiveLatency(latency, targetOffsetMs, currentSpeed);
+        }
+
+        // Start correcting past the tolerance, keep going until the target is crossed.
+        float speed;
+        if (drift > TOLERANCE_MS || (currentSpeed > 1f && drift > 0)) {
+            speed = CATCH_UP_SPEED;
+        } else if (drift < -TOLERANCE_MS || (currentSpeed < 1f && drift < 0)) {
+            speed = FALL_BACK_SPEED;
+        } else {
+            speed = 1f;
+        }
+        setSpeed(speed);
+
+        return new DiagnosticEvent.LiveLatency(latency, targetOffsetMs, currentSpeed);
+    }
+
+    /**
+     * Go back to normal speed, e.g. when the controller is turned off.
+     */
+    void reset() {
+        setSpeed(1f);
+        engine = null;
+    }
+
+    private void setSpeed(float speed) {
+        if (speed == currentSpeed || engine == null) {
+            return;
+        }
+        if (engine.setPlaybackSpeed(speed)) {
+            currentSpeed = speed;
+        }
+    }
+}
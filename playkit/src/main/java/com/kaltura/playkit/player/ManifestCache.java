@@ -0,0 +1,300 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit.player;
+
+import android.net.Uri;
+import android.os.SystemClock;
+
+import com.google.android.exoplayer2.C;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
+import com.google.android.exoplayer2.source.dash.manifest.DashManifestParser;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMasterPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsMediaPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylist;
+import com.google.android.exoplayer2.source.hls.playlist.HlsPlaylistParser;
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.kaltura.playkit.PKLog;
+import com.kaltura.playkit.PKMediaFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-memory cache of prefetched manifests, so prepare() doesn't wait for the manifest round trip.
+ * <p>
+ * Only manifests that don't change under the same url are kept: static DASH MPDs, HLS master playlists
+ * and ended (VOD) HLS media playlists. Entries expire after {@link #TTL_MS}.
+ * DASH manifests are handed to the engine already parsed; HLS playlists are served from memory through
+ * {@link #wrap(DataSource.Factory)}, since HlsMediaSource can't take a parsed playlist.
+ */
+class ManifestCache {
+
+    private static final PKLog log = PKLog.get("ManifestCache");
+
+    static final long TTL_MS = 60000;
+    static final int MAX_ENTRIES = 16;
+
+    // Changes on every setMedia(); the manifest itself doesn't.
+    private static final String PLAY_SESSION_ID_PARAM = "playSessionId";
+
+    private static ManifestCache instance;
+
+    private static class Entry {
+        final Uri uri;          // After redirects; relative urls in the manifest resolve against it.
+        final byte[] data;
+        final DashManifest dashManifest;
+        final long expiryTime;
+
+        Entry(Uri uri, byte[] data, DashManifest dashManifest, long expiryTime) {
+            this.uri = uri;
+            this.data = data;
+            this.dashManifest = dashManifest;
+            this.expiryTime = expiryTime;
+        }
+    }
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(MAX_ENTRIES, 0.75f, true);
+    private final Set<String> pendingKeys = new HashSet<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    static synchronized ManifestCache getInstance() {
+        if (instance == null) {
+            instance = new ManifestCache();
+        }
+        return instance;
+    }
+
+    private ManifestCache() {
+    }
+
+    /**
+     * Fetch and parse the manifest in the background, unless it's already cached or being fetched.
+     */
+    void prefetch(final Uri url, final PKMediaFormat format, final HttpDataSource.Factory dataSourceFactory) {
+        if (format != PKMediaFormat.dash && format != PKMediaFormat.hls) {
+            log.d("Not prefetching manifest of " + format + " source");
+            return;
+        }
+
+        final String key = buildKey(url);
+        synchronized (entries) {
+            if (getFreshEntry(key) != null || !pendingKeys.add(key)) {
+                return;
+            }
+        }
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                Entry entry = null;
+                try {
+                    entry = load(url, format, dataSourceFactory.createDataSource());
+                } catch (IOException e) {
+                    log.w("Failed to prefetch manifest " + url + ": " + e.getMessage());
+                } catch (RuntimeException e) {
+                    // Parsers throw ParserException (an IOException) but also runtime exceptions on bad input.
+                    log.w("Failed to parse manifest " + url + ": " + e);
+                }
+                synchronized (entries) {
+                    pendingKeys.remove(key);
+                    if (entry != null) {
+                        entries.put(key, entry);
+                        trim();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the parsed static DASH manifest for the url, or null if it wasn't prefetched or has expired.
+     */
+    DashManifest getDashManifest(Uri url) {
+        synchronized (entries) {
+            Entry entry = getFreshEntry(buildKey(url));
+            return entry != null ? entry.dashManifest : null;
+        }
+    }
+
+    /**
+     * Wrap a factory so requests for prefetched HLS playlists are served from memory.
+     */
+    DataSource.Factory wrap(final DataSource.Factory upstreamFactory) {
+        return new DataSource.Factory() {
+            @Override
+            public DataSource createDataSource() {
+                return new CachedManifestDataSource(upstreamFactory.createDataSource());
+            }
+        };
+    }
+
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    private Entry load(Uri url, PKMediaFormat format, DataSource dataSource) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Uri finalUri;
+        try {
+            dataSource.open(new DataSpec(url));
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = dataSource.read(buffer, 0, buffer.length)) != C.RESULT_END_OF_INPUT) {
+                out.write(buffer, 0, read);
+            }
+            finalUri = dataSource.getUri() != null ? dataSource.getUri() : url;
+        } finally {
+            dataSource.close();
+        }
+
+        byte[] data = out.toByteArray();
+        long expiryTime = SystemClock.elapsedRealtime() + TTL_MS;
+
+        if (format == PKMediaFormat.dash) {
+            DashManifest manifest = new DashManifestParser().parse(finalUri, new ByteArrayInputStream(data));
+            if (manifest.dynamic) {
+                log.d("Not caching live DASH manifest " + url);
+                return null;
+            }
+            return new Entry(finalUri, data, manifest, expiryTime);
+        }
+
+        HlsPlaylist playlist = new HlsPlaylistParser().parse(finalUri, new ByteArrayInputStream(data));
+        if (playlist instanceof HlsMediaPlaylist && !((HlsMediaPlaylist) playlist).hasEndTag) {
+            log.d("Not caching live HLS media playlist " + url);
+            return null;
+        }
+        return new Entry(finalUri, data, null, expiryTime);
+    }
+
+    // Must hold the entries lock.
+    private Entry getFreshEntry(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiryTime <= SystemClock.elapsedRealtime()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    // Must hold the entries lock.
+    private void trim() {
+        long now = SystemClock.elapsedRealtime();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().expiryTime <= now || entries.size() > MAX_ENTRIES) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static String buildKey(Uri url) {
+        if (url.getQueryParameter(PLAY_SESSION_ID_PARAM) == null) {
+            return url.toString();
+        }
+        Uri.Builder builder = url.buildUpon().clearQuery();
+        for (String name : url.getQueryParameterNames()) {
+            if (PLAY_SESSION_ID_PARAM.equals(name)) {
+                continue;
+            }
+            for (String value : url.getQueryParameters(name)) {
+                builder.appendQueryParameter(name, value);
+            }
+        }
+        return builder.build().toString();
+    }
+
+    /**
+     * Serves a prefetched playlist from memory, anything else from upstream.
+     */
+    private class CachedManifestDataSource implements DataSource {
+
+        private final DataSource upstream;
+        private DataSource activeDataSource;
+        private Uri uri;
+        private byte[] data;
+        private int readPosition;
+        private int bytesRemaining;
+
+        CachedManifestDataSource(DataSource upstream) {
+            this.upstream = upstream;
+        }
+
+        @Override
+        public long open(DataSpec dataSpec) throws IOException {
+            Entry entry;
+            synchronized (entries) {
+                entry = getFreshEntry(buildKey(dataSpec.uri));
+            }
+            if (entry == null || entry.dashManifest != null || dataSpec.position > entry.data.length) {
+                activeDataSource = upstream;
+                return upstream.open(dataSpec);
+            }
+
+            activeDataSource = null;
+            uri = entry.uri;
+            data = entry.data;
+            readPosition = (int) dataSpec.position;
+            bytesRemaining = data.length - readPosition;
+            if (dataSpec.length != C.LENGTH_UNSET) {
+                bytesRemaining = (int) Math.min(bytesRemaining, dataSpec.length);
+            }
+            return bytesRemaining;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int readLength) throws IOException {
+            if (activeDataSource != null) {
+                return activeDataSource.read(buffer, offset, readLength);
+            }
+            if (readLength == 0) {
+                return 0;
+            }
+            if (bytesRemaining == 0) {
+                return C.RESULT_END_OF_INPUT;
+            }
+            int length = Math.min(readLength, bytesRemaining);
+            System.arraycopy(data, readPosition, buffer, offset, length);
+            readPosition += length;
+            bytesRemaining -= length;
+            return length;
+        }
+
+        @Override
+        public Uri getUri() {
+            return activeDataSource != null ? activeDataSource.getUri() : uri;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (activeDataSource != null) {
+                activeDataSource.close();
+                activeDataSource = null;
+            }
+            uri = null;
+            data = null;
+        }
+    }
+}
@@ -21,11 +21,13 @@ import android.media.MediaPlayer;
 import android.net.Uri;
 import android.view.SurfaceHolder;
 
+import com.kaltura.playkit.PKBufferProfile;
 import com.kaltura.playkit.PKDrmParams;
 import com.kaltura.playkit.PKLog;
 import com.kaltura.playkit.PlaybackInfo;
 import com.kaltura.playkit.PlayerEvent;
 import com.kaltura.playkit.PlayerState;
+import com.kaltura.playkit.QosMetrics;
 import com.kaltura.playkit.drm.WidevineClassicDrm;
 import com.kaltura.playkit.player.metadata.PKMetadata;
 import com.kaltura.playkit.utils.Consts;
@@ -73,6 +75,11 @@ class MediaPlayerWrapper implements PlayerEngine, SurfaceHolder.Callback, MediaP
     private boolean isPauseAfterPrepare = false;
     private boolean appInBackground;
 
+    // Scrubbing: one seek at a time, the next one goes to the latest target when it completes.
+    private boolean isScrubbing = false;
+    private boolean isScrubSeekInProgress = false;
+    private long pendingScrubPosition = Consts.TIME_UNSET;
+
     MediaPlayerWrapper(Context context) {
         this.context = context;
         player = new MediaPlayer();
@@ -274,12 +281,53 @@ class MediaPlayerWrapper implements PlayerEngine, SurfaceHolder.Callback, MediaP
             return;
         }
 
+        if (isScrubbing) {
+            sendDistinctEvent(PlayerEvent.Type.SEEKING);
+            if (isScrubSeekInProgress) {
+                pendingScrubPosition = position;
+            } else {
+                isScrubSeekInProgress = true;
+                player.seekTo((int) position);
+            }
+            return;
+        }
+
         player.seekTo((int)position);
         changeState(PlayerState.BUFFERING);
         sendDistinctEvent(PlayerEvent.Type.SEEKING);
         sendDistinctEvent(PlayerEvent.Type.SEEKED);
     }
 
+    @Override
+    public void setScrubbing(boolean scrubbing) {
+        if (isScrubbing == scrubbing) {
+            return;
+        }
+        isScrubbing = scrubbing;
+        if (scrubbing) {
+            return;
+        }
+
+        long position = pendingScrubPosition;
+        pendingScrubPosition = Consts.TIME_UNSET;
+        isScrubSeekInProgress = false;
+        if (position != Consts.TIME_UNSET) {
+            seekTo(position);
+        } else if (PlayerEvent.Type.SEEKING.equals(currentEvent)) {
+            sendDistinctEvent(PlayerEvent.Type.SEEKED);
+        }
+    }
+
+    @Override
+    public boolean isLiveStream() {
+        return false;
+    }
+
+    @Override
+    public boolean setPlaybackSpeed(float speed) {
+        return false;
+    }
+
     @Override
     public void startFrom(long position) {
         if (shouldRestorePlayerToPreviousState) {
@@ -359,11 +407,52 @@ class MediaPlayerWrapper implements PlayerEngine, SurfaceHolder.Callback, MediaP
         playerPosition = 0;
     }
 
+    @Override
+    public void reset() {
+        log.d("reset");
+        if (player != null) {
+            player.reset();
+        }
+        mediaSourceConfig = null;
+        prepareState = NOT_PREPARED;
+        currentEvent = null;
+        currentState = PlayerState.IDLE;
+        previousState = null;
+        playerDuration = Consts.TIME_UNSET;
+        playerPosition = 0;
+        isPlayAfterPrepare = false;
+        isPauseAfterPrepare = false;
+        shouldRestorePlayerToPreviousState = false;
+        isScrubbing = false;
+        isScrubSeekInProgress = false;
+        pendingScrubPosition = Consts.TIME_UNSET;
+    }
+
+    @Override
+    public void setBufferProfile(PKBufferProfile bufferProfile) {
+        // MediaPlayer has no buffering controls.
+    }
+
+    @Override
+    public void setSegmentCache(MediaSegmentCache segmentCache) {
+        // MediaPlayer does its own networking.
+    }
+
     @Override
     public PlaybackInfo getPlaybackInfo() {
         return new PlaybackInfo(getWidevineAssetPlaybackUri(assetUri), -1, -1, -1, player.getVideoWidth(), player.getVideoHeight(), false);
     }
 
+    @Override
+    public PlayerEvent.PlaybackInfoUpdated obtainPlaybackInfoUpdated() {
+        return PlayerEvent.PlaybackInfoUpdated.obtain(getWidevineAssetPlaybackUri(assetUri), -1, -1, -1, player.getVideoWidth(), player.getVideoHeight(), false);
+    }
+
+    @Override
+    public QosMetrics getQosMetrics() {
+        return null;
+    }
+
     @Override
     public PKError getCurrentError() {
         return null;
@@ -523,6 +612,16 @@ class MediaPlayerWrapper implements PlayerEngine, SurfaceHolder.Callback, MediaP
 
     @Override
     public void onSeekComplete(MediaPlayer mediaPlayer) {
+        if (isScrubbing) {
+            isScrubSeekInProgress = false;
+            if (pendingScrubPosition != Consts.TIME_UNSET) {
+                long position = pendingScrubPosition;
+                pendingScrubPosition = Consts.TIME_UNSET;
+                isScrubSeekInProgress = true;
+                player.seekTo((int) position);
+            }
+            return;
+        }
         if (getCurrentPosition() < getDuration()) {
             sendDistinctEvent(PlayerEvent.Type.CAN_PLAY);
             changeState(PlayerState.READY);
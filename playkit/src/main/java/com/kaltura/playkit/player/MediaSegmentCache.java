@@ -0,0 +1,275 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit.player;
+
+import android.content.Context;
+import android.net.Uri;
+
+import com.google.android.exoplayer2.upstream.DataSource;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.FileDataSource;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSink;
+import com.google.android.exoplayer2.upstream.cache.CacheDataSource;
+import com.google.android.exoplayer2.upstream.cache.LeastRecentlyUsedCacheEvictor;
+import com.google.android.exoplayer2.upstream.cache.SimpleCache;
+import com.kaltura.playkit.PKLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Size-bounded disk cache for media segments, evicting the least recently used data first.
+ * Enable it with {@link com.kaltura.playkit.Player.Settings#setSegmentCache(MediaSegmentCache)}; replays and
+ * seek-back then read from disk instead of the network.
+ * <p>
+ * Requests are keyed by their url without the volatile query params (see {@link #addVolatileQueryParam(String)}),
+ * so the same segment requested by different playback sessions is a hit. Manifests and playlists are never
+ * cached, since live ones change under the same url.
+ * <p>
+ * There is one cache per process: the underlying cache locks its directory.
+ */
+public class MediaSegmentCache {
+
+    private static final PKLog log = PKLog.get("MediaSegmentCache");
+
+    public static final long DEFAULT_MAX_BYTES = 100 * 1024 * 1024;
+
+    private static final String CACHE_DIR_NAME = "playkit-segments";
+    private static final long MAX_CACHE_FILE_SIZE = 2 * 1024 * 1024;
+    private static final String[] MANIFEST_EXTENSIONS = {".m3u8", ".mpd", "/manifest"};
+
+    private static MediaSegmentCache instance;
+
+    private final SimpleCache cache;
+    private final long maxBytes;
+    private final Set<String> volatileQueryParams = new CopyOnWriteArraySet<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong cachedBytesRead = new AtomicLong();
+    private final AtomicLong networkBytesRead = new AtomicLong();
+
+    /**
+     * Hit/miss counters, as returned by {@link #getStats()}.
+     */
+    public static class Stats {
+        public final long hitCount;          // Requests served entirely from the cache.
+        public final long missCount;         // Requests that read at least some bytes from the network.
+        public final long cachedBytesRead;
+        public final long networkBytesRead;
+
+        Stats(long hitCount, long missCount, long cachedBytesRead, long networkBytesRead) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.cachedBytesRead = cachedBytesRead;
+            this.networkBytesRead = networkBytesRead;
+        }
+
+        public float getHitRate() {
+            long requests = hitCount + missCount;
+            return requests > 0 ? (float) hitCount / requests : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hitCount + " misses=" + missCount + " cachedBytes=" + cachedBytesRead + " networkBytes=" + networkBytesRead;
+        }
+    }
+
+    public static MediaSegmentCache getInstance(Context context) {
+        return getInstance(context, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Get the process-wide cache, creating it on first call.
+     *
+     * @param maxBytes - the size limit. Only used when the cache is created.
+     */
+    public static synchronized MediaSegmentCache getInstance(Context context, long maxBytes) {
+        if (instance == null) {
+            File dir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR_NAME);
+            instance = new MediaSegmentCache(dir, maxBytes);
+        } else if (instance.maxBytes != maxBytes) {
+            log.w("Segment cache already created with " + instance.maxBytes + " bytes; ignoring " + maxBytes);
+        }
+        return instance;
+    }
+
+    private MediaSegmentCache(File dir, long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.cache = new SimpleCache(dir, new LeastRecentlyUsedCacheEvictor(maxBytes));
+        volatileQueryParams.add("playSessionId");
+        volatileQueryParams.add("clientTag");
+        volatileQueryParams.add("referrer");
+    }
+
+    /**
+     * Ignore a query param when keying requests. By default playSessionId, clientTag and referrer are ignored.
+     */
+    public MediaSegmentCache addVolatileQueryParam(String name) {
+        volatileQueryParams.add(name);
+        return this;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * @return the number of bytes currently stored.
+     */
+    public long getCacheSpace() {
+        return cache.getCacheSpace();
+    }
+
+    public Stats getStats() {
+        return new Stats(hitCount.get(), missCount.get(), cachedBytesRead.get(), networkBytesRead.get());
+    }
+
+    public void resetStats() {
+        hitCount.set(0);
+        missCount.set(0);
+        cachedBytesRead.set(0);
+        networkBytesRead.set(0);
+    }
+
+    DataSource.Factory wrap(final DataSource.Factory upstreamFactory) {
+        return new DataSource.Factory() {
+            @Override
+            public DataSource createDataSource() {
+                return new CachingDataSource(upstreamFactory.createDataSource());
+            }
+        };
+    }
+
+    String buildCacheKey(Uri uri) {
+        Set<String> names = uri.getQueryParameterNames();
+        if (names.isEmpty()) {
+            return uri.toString();
+        }
+
+        Uri.Builder builder = uri.buildUpon().clearQuery();
+        for (String name : names) {
+            if (volatileQueryParams.contains(name)) {
+                continue;
+            }
+            for (String value : uri.getQueryParameters(name)) {
+                builder.appendQueryParameter(name, value);
+            }
+        }
+        return builder.build().toString();
+    }
+
+    private static boolean shouldCache(Uri uri) {
+        String scheme = uri.getScheme();
+        if (!"http".equalsIgnoreCase(scheme) && !"https".equalsIgnoreCase(scheme)) {
+            return false;   // Local files and assets are already on the device.
+        }
+        String path = uri.getPath();
+        if (path == null) {
+            return true;
+        }
+        path = path.toLowerCase();
+        for (String extension : MANIFEST_EXTENSIONS) {
+            if (path.endsWith(extension)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void recordRequest(long cachedBytes, long networkBytes) {
+        if (cachedBytes + networkBytes == 0) {
+            return;
+        }
+        if (networkBytes == 0) {
+            hitCount.incrementAndGet();
+        } else {
+            missCount.incrementAndGet();
+        }
+        cachedBytesRead.addAndGet(cachedBytes);
+        networkBytesRead.addAndGet(networkBytes);
+    }
+
+    /**
+     * Reads segments through the cache with a normalized key, and everything else straight from upstream.
+     */
+    private class CachingDataSource implements DataSource, CacheDataSource.EventListener {
+
+        private final DataSource upstream;
+        private final CacheDataSource cacheDataSource;
+        private DataSource activeDataSource;
+        private long bytesRead;
+        private long cachedBytes;
+
+        CachingDataSource(DataSource upstream) {
+            this.upstream = upstream;
+            this.cacheDataSource = new CacheDataSource(cache, upstream, new FileDataSource(),
+                    new CacheDataSink(cache, MAX_CACHE_FILE_SIZE),
+                    CacheDataSource.FLAG_BLOCK_ON_CACHE | CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR, this);
+        }
+
+        @Override
+        public long open(DataSpec dataSpec) throws IOException {
+            bytesRead = 0;
+            cachedBytes = 0;
+            if (!shouldCache(dataSpec.uri)) {
+                activeDataSource = upstream;
+                return upstream.open(dataSpec);
+            }
+
+            activeDataSource = cacheDataSource;
+            String key = dataSpec.key != null ? dataSpec.key : buildCacheKey(dataSpec.uri);
+            return cacheDataSource.open(new DataSpec(dataSpec.uri, dataSpec.postBody, dataSpec.absoluteStreamPosition,
+                    dataSpec.position, dataSpec.length, key, dataSpec.flags));
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int readLength) throws IOException {
+            int read = activeDataSource.read(buffer, offset, readLength);
+            if (read > 0) {
+                bytesRead += read;
+            }
+            return read;
+        }
+
+        @Override
+        public Uri getUri() {
+            return activeDataSource != null ? activeDataSource.getUri() : null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (activeDataSource == null) {
+                return;
+            }
+            try {
+                activeDataSource.close();
+            } finally {
+                // The cache reports what it served from disk when its source is closed.
+                if (activeDataSource == cacheDataSource) {
+                    recordRequest(cachedBytes, Math.max(0, bytesRead - cachedBytes));
+                }
+                activeDataSource = null;
+            }
+        }
+
+        @Override
+        public void onCachedBytesRead(long cacheSizeBytes, long cachedBytesRead) {
+            cachedBytes += cachedBytesRead;
+        }
+    }
+}
@@ -16,6 +16,7 @@ import android.net.Uri;
 
 import com.kaltura.playkit.PKMediaSource;
 import com.kaltura.playkit.PKRequestParams;
+import com.kaltura.playkit.StartupTracer;
 
 /**
  * Created by Noam Tamim @ Kaltura on 29/03/2017.
@@ -25,6 +26,7 @@ class PKMediaSourceConfig {
     PKRequestParams.Adapter adapter;
     boolean cea608CaptionsEnabled;
     boolean useTextureView;
+    StartupTracer startupTracer; // null when the entry isn't traced (preloaded entries).
 
     PKMediaSourceConfig(PKMediaSource mediaSource, PKRequestParams.Adapter adapter, boolean cea608CaptionsEnabled, boolean useTextureView) {
         this.mediaSource = mediaSource;
@@ -14,11 +14,19 @@ package com.kaltura.playkit.player;
 
 import android.content.Context;
 import android.media.MediaCodec;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.view.ViewGroup;
 
 import com.kaltura.playkit.Assert;
+import com.kaltura.playkit.DiagnosticEvent;
+import com.kaltura.playkit.DispatchMonitor;
+import com.kaltura.playkit.EventJournal;
+import com.kaltura.playkit.MessageBus;
+import com.kaltura.playkit.PKBufferProfile;
 import com.kaltura.playkit.PKEvent;
 import com.kaltura.playkit.PKLog;
 import com.kaltura.playkit.PKMediaConfig;
@@ -27,7 +35,10 @@ import com.kaltura.playkit.PKMediaSource;
 import com.kaltura.playkit.PKRequestParams;
 import com.kaltura.playkit.Player;
 import com.kaltura.playkit.PlayerEvent;
+import com.kaltura.playkit.PlayerSnapshot;
 import com.kaltura.playkit.PlayerState;
+import com.kaltura.playkit.QosMetrics;
+import com.kaltura.playkit.StartupTracer;
 import com.kaltura.playkit.ads.AdController;
 import com.kaltura.playkit.utils.Consts;
 import com.kaltura.playkit.PKError;
@@ -44,12 +55,25 @@ public class PlayerController implements Player {
 
     private static final PKLog log = PKLog.get("PlayerController");
 
+    private static final long DEFAULT_QOS_REPORT_INTERVAL_MS = 10000;
+    private static final long SNAPSHOT_INTERVAL_MS = 250;
+
     private PlayerEngine player;
+    private PlayerEngineRecycler engineRecycler;
     private Context context;
+    private MessageBus messageBus;
     private PlayerView rootPlayerView;
     private PKMediaConfig mediaConfig;
     private PKMediaSourceConfig sourceConfig;
     private PKEvent.Listener eventListener;
+    private StartupTracer startupTracer;
+
+    // Set by prepareNext(), consumed by skip(). The next engine buffers the next entry while the current one
+    // plays; it's null if the entry can't be preloaded (wvm) or was dropped when the app went to background.
+    private PKMediaConfig nextMediaConfig;
+    private PKMediaSourceConfig nextSourceConfig;
+    private String nextSessionId;
+    private ExoPlayerWrapper nextPlayer;
     private PlayerView playerEngineView;
 
     private String sessionId;
@@ -60,6 +84,67 @@ public class PlayerController implements Player {
     private boolean isNewEntry = true;
     private boolean useTextureView = false;
     private boolean cea608CaptionsEnabled = false;
+    private PKBufferProfile bufferProfile = PKBufferProfile.defaults();
+    private MediaSegmentCache segmentCache;
+
+    // While suspended, the engine keeps the loaded media in background until the grace period ends.
+    private long backgroundGracePeriodMs = 0;
+    private boolean suspended;
+    private Handler mainHandler = new Handler(Looper.getMainLooper());
+    private Runnable suspendTimeout = new Runnable() {
+        @Override
+        public void run() {
+            log.d("Background grace period ended, releasing the player");
+            suspended = false;
+            releasePlayerResources();
+        }
+    };
+
+    private LiveLatencyController liveLatencyController = new LiveLatencyController();
+    private Runnable liveLatencyTick = new Runnable() {
+        @Override
+        public void run() {
+            if (player == null) {
+                return;
+            }
+            DiagnosticEvent.LiveLatency liveLatency = liveLatencyController.update(player);
+            if (liveLatency != null && eventListener != null) {
+                eventListener.onEvent(liveLatency);
+            }
+            mainHandler.postDelayed(this, LiveLatencyController.UPDATE_INTERVAL_MS);
+        }
+    };
+
+    private long qosReportIntervalMs = DEFAULT_QOS_REPORT_INTERVAL_MS;
+    private Runnable qosReportTick = new Runnable() {
+        @Override
+        public void run() {
+            if (player == null) {
+                return;
+            }
+            if (player.isPlaying()) {
+                QosMetrics qosMetrics = player.getQosMetrics();
+                if (qosMetrics != null && eventListener != null) {
+                    eventListener.onEvent(new PlayerEvent.QosMetricsUpdated(qosMetrics));
+                }
+            }
+            mainHandler.postDelayed(this, qosReportIntervalMs);
+        }
+    };
+
+    // Written on the main thread only, read from any thread.
+    private volatile PlayerSnapshot snapshot = PlayerSnapshot.EMPTY;
+    private PlayerState currentState = PlayerState.IDLE;
+    private long videoBitrate;
+    private Runnable snapshotTick = new Runnable() {
+        @Override
+        public void run() {
+            publishSnapshot();
+            if (player != null) {
+                mainHandler.postDelayed(this, SNAPSHOT_INTERVAL_MS);
+            }
+        }
+    };
 
     private Settings settings = new Settings();
 
@@ -82,6 +167,71 @@ public class PlayerController implements Player {
             PlayerController.this.useTextureView = useTextureView;
             return this;
         }
+
+        @Override
+        public Player.Settings setEventDispatchMode(MessageBus.DispatchMode dispatchMode) {
+            messageBus.setDispatchMode(dispatchMode);
+            return this;
+        }
+
+        @Override
+        public Player.Settings setEventCoalescing(Enum eventType, long windowMs) {
+            messageBus.setCoalescing(eventType, windowMs);
+            return this;
+        }
+
+        @Override
+        public Player.Settings setDispatchMonitor(DispatchMonitor dispatchMonitor) {
+            messageBus.setDispatchMonitor(dispatchMonitor);
+            return this;
+        }
+
+        @Override
+        public Player.Settings setEventJournal(EventJournal eventJournal) {
+            messageBus.setEventJournal(eventJournal);
+            return this;
+        }
+
+        @Override
+        public Player.Settings setBufferProfile(PKBufferProfile bufferProfile) {
+            PlayerController.this.bufferProfile = bufferProfile;
+            if (player != null) {
+                player.setBufferProfile(bufferProfile);
+            }
+            if (nextPlayer != null) {
+                nextPlayer.setBufferProfile(bufferProfile);
+            }
+            return this;
+        }
+
+        @Override
+        public Player.Settings setBackgroundGracePeriod(long gracePeriodMs) {
+            PlayerController.this.backgroundGracePeriodMs = gracePeriodMs;
+            return this;
+        }
+
+        @Override
+        public Player.Settings setLiveLatencyTarget(long targetOffsetMs, long maxDriftMs) {
+            liveLatencyController.setTarget(targetOffsetMs, maxDriftMs);
+            updateLiveLatencyTick();
+            return this;
+        }
+
+        @Override
+        public Player.Settings setQosReportInterval(long intervalMs) {
+            PlayerController.this.qosReportIntervalMs = intervalMs;
+            updateQosReportTick();
+            return this;
+        }
+
+        @Override
+        public Player.Settings setSegmentCache(MediaSegmentCache segmentCache) {
+            PlayerController.this.segmentCache = segmentCache;
+            if (player != null) {
+                player.setSegmentCache(segmentCache);
+            }
+            return this;
+        }
     }
 
     public void setEventListener(PKEvent.Listener eventListener) {
@@ -125,7 +275,10 @@ public class PlayerController implements Player {
                         event = new PlayerEvent.VolumeChanged(player.getVolume());
                         break;
                     case PLAYBACK_INFO_UPDATED:
-                        event = new PlayerEvent.PlaybackInfoUpdated(player.getPlaybackInfo());
+                        // Pooled; posting hands it over to the bus.
+                        PlayerEvent.PlaybackInfoUpdated playbackInfoUpdated = player.obtainPlaybackInfoUpdated();
+                        videoBitrate = playbackInfoUpdated.playbackInfo.getVideoBitrate();
+                        event = playbackInfoUpdated;
                         break;
                     case ERROR:
                         if (player.getCurrentError() == null) {
@@ -150,6 +303,10 @@ public class PlayerController implements Player {
                     case SOURCE_SELECTED:
                         event = new PlayerEvent.SourceSelected(sourceConfig.mediaSource);
                         break;
+                    case SEEKED:
+                        publishSnapshot();
+                        event = new PlayerEvent.Generic(eventType);
+                        break;
                     default:
                         event = new PlayerEvent.Generic(eventType);
                 }
@@ -162,14 +319,34 @@ public class PlayerController implements Player {
     private StateChangedListener stateChangedTrigger = new StateChangedListener() {
         @Override
         public void onStateChanged(PlayerState oldState, PlayerState newState) {
+            currentState = newState;
+            publishSnapshot();
+            if (newState == PlayerState.READY && startupTracer != null) {
+                startupTracer.end(StartupTracer.Phase.FIRST_READY);
+                if (!(player instanceof ExoPlayerWrapper)) {
+                    // MediaPlayer doesn't report its first frame; READY is as far as we can see.
+                    startupTracer.complete();
+                }
+            }
             if (eventListener != null) {
                 eventListener.onEvent(new PlayerEvent.StateChanged(newState, oldState));
             }
         }
     };
 
-    public PlayerController(Context context) {
+    private PKEvent.Listener startupMetricsListener = new PKEvent.Listener() {
+        @Override
+        public void onEvent(PKEvent event) {
+            if (eventListener != null) {
+                eventListener.onEvent(event);
+            }
+        }
+    };
+
+    public PlayerController(Context context, MessageBus messageBus) {
         this.context = context;
+        this.messageBus = messageBus;
+        this.engineRecycler = new PlayerEngineRecycler(context);
         initializeRootPlayerView();
     }
 
@@ -257,6 +434,11 @@ public class PlayerController implements Player {
 
         PKMediaSource source = sourceConfig.mediaSource;
         boolean shouldSwitchBetweenPlayers = shouldSwitchBetweenPlayers(source);
+        // Null after skip() to a preloaded entry; that startup isn't traced.
+        StartupTracer startupTracer = this.startupTracer;
+        if (startupTracer != null) {
+            startupTracer.start(StartupTracer.Phase.ENGINE_CREATION);
+        }
         if (player == null) {
             switchPlayers(source.getMediaFormat(), false);
         } else if (shouldSwitchBetweenPlayers) {
@@ -264,7 +446,39 @@ public class PlayerController implements Player {
         }
 
         player.load(sourceConfig);
+        if (startupTracer != null) {
+            startupTracer.end(StartupTracer.Phase.ENGINE_CREATION);
+            startupTracer.start(StartupTracer.Phase.FIRST_READY);
+            startupTracer.start(StartupTracer.Phase.FIRST_FRAME);
+        }
+        updateLiveLatencyTick();
+        updateQosReportTick();
+        mainHandler.removeCallbacks(snapshotTick);
+        mainHandler.post(snapshotTick);
+    }
+
+    private void publishSnapshot() {
+        if (player == null) {
+            return;
+        }
+        snapshot = new PlayerSnapshot(player.getCurrentPosition(), player.getBufferedPosition(), player.getDuration(),
+                currentState, player.isPlaying(), videoBitrate, player.isLiveStream(), SystemClock.elapsedRealtime());
+    }
 
+    private void updateQosReportTick() {
+        mainHandler.removeCallbacks(qosReportTick);
+        if (qosReportIntervalMs > 0 && player != null) {
+            mainHandler.postDelayed(qosReportTick, qosReportIntervalMs);
+        }
+    }
+
+    private void updateLiveLatencyTick() {
+        mainHandler.removeCallbacks(liveLatencyTick);
+        if (liveLatencyController.isEnabled() && player != null) {
+            mainHandler.postDelayed(liveLatencyTick, LiveLatencyController.UPDATE_INTERVAL_MS);
+        } else {
+            liveLatencyController.reset();
+        }
     }
 
     /**
@@ -277,15 +491,20 @@ public class PlayerController implements Player {
     public boolean setMedia(PKMediaConfig mediaConfig) {
         log.d("setMedia");
 
+        startupTracer = mediaConfig.getStartupTracer() != null ? mediaConfig.getStartupTracer() : new StartupTracer();
+        startupTracer.setListener(startupMetricsListener);
+        startupTracer.start(StartupTracer.Phase.SET_MEDIA);
+
         isNewEntry = true;
+        videoBitrate = 0;
 
         sessionId = generateSessionId();
-        if (contentRequestAdapter != null) {
-            contentRequestAdapter.updateParams(this);
-        }
+        updateRequestParams();
 
         this.mediaConfig = mediaConfig;
+        startupTracer.start(StartupTracer.Phase.SOURCE_SELECTION);
         PKMediaSource source = SourceSelector.selectSource(mediaConfig.getMediaEntry());
+        startupTracer.end(StartupTracer.Phase.SOURCE_SELECTION);
 
         if (source == null) {
             sendErrorMessage(PKPlayerErrorType.SOURCE_SELECTION_FAILED, "No playable source found for entry");
@@ -293,10 +512,18 @@ public class PlayerController implements Player {
         }
 
         this.sourceConfig = new PKMediaSourceConfig(source, contentRequestAdapter, cea608CaptionsEnabled, useTextureView);
+        sourceConfig.startupTracer = startupTracer;
+        startupTracer.end(StartupTracer.Phase.SET_MEDIA);
         eventTrigger.onEvent(PlayerEvent.Type.SOURCE_SELECTED);
         return true;
     }
 
+    private void updateRequestParams() {
+        if (contentRequestAdapter != null) {
+            contentRequestAdapter.updateParams(this);
+        }
+    }
+
     private String generateSessionId() {
         UUID mediaSessionId = UUID.randomUUID();
         String newSessionId = playerSessionId.toString();
@@ -311,20 +538,17 @@ public class PlayerController implements Player {
         }
 
         if (player != null) {
-            player.destroy();
+            engineRecycler.recycle(player);
         }
         initializePlayer(mediaFormat);
     }
 
     private void initializePlayer(PKMediaFormat mediaFormat) {
-        //Decide which player wrapper should be initialized.
-        if (mediaFormat != PKMediaFormat.wvm) {
-            player = new ExoPlayerWrapper(context);
-            togglePlayerListeners(true);
-        } else {
-            player = new MediaPlayerWrapper(context);
-            togglePlayerListeners(true);
-        }
+        //Decide which player wrapper should be initialized, reusing an idle one if we have it.
+        player = engineRecycler.obtain(mediaFormat);
+        player.setBufferProfile(bufferProfile);
+        player.setSegmentCache(segmentCache);
+        togglePlayerListeners(true);
     }
 
     private void addPlayerView() {
@@ -339,6 +563,12 @@ public class PlayerController implements Player {
     @Override
     public void destroy() {
         log.d("destroy");
+        mainHandler.removeCallbacks(suspendTimeout);
+        mainHandler.removeCallbacks(liveLatencyTick);
+        mainHandler.removeCallbacks(qosReportTick);
+        mainHandler.removeCallbacks(snapshotTick);
+        snapshot = PlayerSnapshot.EMPTY;
+        suspended = false;
         if (player != null) {
             if (playerEngineView != null) {
                 rootPlayerView.removeView(playerEngineView);
@@ -346,8 +576,11 @@ public class PlayerController implements Player {
             player.destroy();
             togglePlayerListeners(false);
         }
+        releaseNextPlayer();
+        engineRecycler.clear();
         player = null;
         mediaConfig = null;
+        nextMediaConfig = null;
         eventListener = null;
     }
 
@@ -396,6 +629,19 @@ public class PlayerController implements Player {
         return player.getBufferedPosition();
     }
 
+    @Override
+    public PlayerSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public QosMetrics getQosMetrics() {
+        if (player == null) {
+            return null;
+        }
+        return player.getQosMetrics();
+    }
+
     public void seekTo(long position) {
         log.d("seek to " + position);
         if (player == null) {
@@ -405,6 +651,16 @@ public class PlayerController implements Player {
         player.seekTo(position);
     }
 
+    @Override
+    public void setScrubbing(boolean scrubbing) {
+        log.d("setScrubbing " + scrubbing);
+        if (player == null) {
+            log.w("Attempt to invoke 'setScrubbing()' on null instance of the player engine");
+            return;
+        }
+        player.setScrubbing(scrubbing);
+    }
+
     @Override
     public AdController getAdController() {
         log.d("PlayerController getAdController");
@@ -470,12 +726,146 @@ public class PlayerController implements Player {
 
     @Override
     public void prepareNext(@NonNull PKMediaConfig mediaConfig) {
-        Assert.failState("Not implemented");
+        log.d("prepareNext");
+        releaseNextPlayer();
+        nextMediaConfig = null;
+
+        PKMediaSource source = SourceSelector.selectSource(mediaConfig.getMediaEntry());
+        if (source == null) {
+            sendErrorMessage(PKPlayerErrorType.SOURCE_SELECTION_FAILED, "No playable source found for next entry");
+            return;
+        }
+
+        nextMediaConfig = mediaConfig;
+        if (source.getMediaFormat() == PKMediaFormat.wvm) {
+            log.d("Next entry can't be preloaded, it will be loaded on skip()");
+            return;
+        }
+
+        nextSessionId = generateSessionId();
+        nextSourceConfig = new PKMediaSourceConfig(source, contentRequestAdapter, cea608CaptionsEnabled, useTextureView);
+
+        // The request adapter takes the session id from the player, and the url is adapted on load.
+        // Let it see the next session while the next entry loads, then go back to the current one.
+        String currentSessionId = sessionId;
+        sessionId = nextSessionId;
+        updateRequestParams();
+
+        // No listeners yet: the entry is buffered silently (manifest, first segments, DRM session) and announced on skip().
+        nextPlayer = engineRecycler.obtainExoPlayer();
+        nextPlayer.setBufferProfile(bufferProfile);
+        nextPlayer.setSegmentCache(segmentCache);
+        nextPlayer.load(nextSourceConfig);
+        long startPosition = mediaConfig.getStartPosition() * MILLISECONDS_MULTIPLIER;
+        if (startPosition > 0) {
+            nextPlayer.startFrom(startPosition);
+        }
+
+        sessionId = currentSessionId;
+        updateRequestParams();
     }
 
     @Override
-    public void skip() {
-        Assert.failState("Not implemented");
+    public void prefetchManifest(@NonNull PKMediaConfig mediaConfig) {
+        log.d("prefetchManifest");
+        PKMediaSource source = SourceSelector.selectSource(mediaConfig.getMediaEntry());
+        if (source == null) {
+            log.w("No playable source found for entry, nothing to prefetch");
+            return;
+        }
+
+        // Keyed by the adapted url, the same one load() will request.
+        PKMediaSourceConfig config = new PKMediaSourceConfig(source, contentRequestAdapter, cea608CaptionsEnabled, useTextureView);
+        ManifestCache.getInstance().prefetch(config.getUrl(), source.getMediaFormat(),
+                HttpDataSourceProvider.getInstance(context).getHttpDataSourceFactory(null));
+    }
+
+    @Override
+    public boolean skip() {
+        log.d("skip");
+        if (nextMediaConfig == null) {
+            log.w("Attempt to invoke 'skip()' without calling 'prepareNext()' first");
+            return false;
+        }
+
+        PKMediaConfig mediaConfig = nextMediaConfig;
+        ExoPlayerWrapper preloadedPlayer = nextPlayer;
+        nextMediaConfig = null;
+        nextPlayer = null;
+
+        if (preloadedPlayer == null) {
+            // Preloading didn't happen or failed; load it the regular way, as prepare() would.
+            messageBus.clearStickyEvents();
+            if (!setMedia(mediaConfig)) {
+                return false;
+            }
+            prepare(mediaConfig);
+            return true;
+        }
+
+        // Sticky events describe the previous media.
+        messageBus.clearStickyEvents();
+
+        boolean wasPlaying = isPlaying();
+        if (player != null) {
+            removePlayerView();
+            engineRecycler.recycle(player);
+        }
+
+        player = preloadedPlayer;
+        this.mediaConfig = mediaConfig;
+        sourceConfig = nextSourceConfig;
+        nextSourceConfig = null;
+        sessionId = nextSessionId;
+        updateRequestParams();
+        // The start position was already applied while preloading.
+        isNewEntry = false;
+        // Its startup happened in the background; there's nothing meaningful to trace.
+        startupTracer = null;
+
+        togglePlayerListeners(true);
+        addPlayerView();
+        announcePreloadedEntry(preloadedPlayer);
+
+        if (wasPlaying) {
+            player.play();
+        }
+        return true;
+    }
+
+    // The preloaded engine had no listeners while it was loading; send what the app and plugins have missed.
+    private void announcePreloadedEntry(ExoPlayerWrapper engine) {
+        eventTrigger.onEvent(PlayerEvent.Type.SOURCE_SELECTED);
+
+        PlayerState state = engine.getCurrentState();
+        if (state != PlayerState.IDLE) {
+            stateChangedTrigger.onStateChanged(PlayerState.IDLE, state);
+        }
+        if (engine.getCurrentError() != null) {
+            eventTrigger.onEvent(PlayerEvent.Type.ERROR);
+            return;
+        }
+        if (engine.getDuration() != Consts.TIME_UNSET) {
+            eventTrigger.onEvent(PlayerEvent.Type.LOADED_METADATA);
+            eventTrigger.onEvent(PlayerEvent.Type.DURATION_CHANGE);
+        }
+        if (engine.getPKTracks() != null) {
+            eventTrigger.onEvent(PlayerEvent.Type.TRACKS_AVAILABLE);
+        }
+        if (!engine.getMetadata().isEmpty()) {
+            eventTrigger.onEvent(PlayerEvent.Type.METADATA_AVAILABLE);
+        }
+        if (state == PlayerState.READY) {
+            eventTrigger.onEvent(PlayerEvent.Type.CAN_PLAY);
+        }
+    }
+
+    private void releaseNextPlayer() {
+        if (nextPlayer != null) {
+            engineRecycler.recycle(nextPlayer);
+            nextPlayer = null;
+        }
+        nextSourceConfig = null;
     }
 
     @Override
@@ -500,14 +890,53 @@ public class PlayerController implements Player {
             log.w("Attempt to invoke 'release()' on null instance of the player engine");
             return;
         }
+        if (suspended) {
+            return;
+        }
+        mainHandler.removeCallbacks(liveLatencyTick);
+        mainHandler.removeCallbacks(qosReportTick);
+        mainHandler.removeCallbacks(snapshotTick);
+        publishSnapshot();
+        liveLatencyController.reset();
+
+        if (backgroundGracePeriodMs > 0 && player instanceof ExoPlayerWrapper) {
+            // Coming back soon is common (notification, quick app switch): keep the media loaded for a while.
+            log.d("Suspending player for " + backgroundGracePeriodMs + "ms");
+            suspended = true;
+            ((ExoPlayerWrapper) player).suspend();
+            mainHandler.postDelayed(suspendTimeout, backgroundGracePeriodMs);
+
+            // Don't hold a second set of decoders in background; skip() will load the next entry the regular way.
+            releaseNextPlayer();
+            engineRecycler.clear();
+            return;
+        }
 
+        releasePlayerResources();
+    }
+
+    private void releasePlayerResources() {
         player.release();
         togglePlayerListeners(false);
+
+        // Don't hold a second set of decoders in background; skip() will load the next entry the regular way.
+        releaseNextPlayer();
+        engineRecycler.clear();
     }
 
     @Override
     public void onApplicationResumed() {
         log.d("onApplicationResumed");
+        if (suspended) {
+            // Still within the grace period: the media is loaded, only the surface has to come back.
+            suspended = false;
+            mainHandler.removeCallbacks(suspendTimeout);
+            ((ExoPlayerWrapper) player).unsuspend();
+            updateLiveLatencyTick();
+            updateQosReportTick();
+            mainHandler.post(snapshotTick);
+            return;
+        }
         if (player != null) {
             player.restore();
         }
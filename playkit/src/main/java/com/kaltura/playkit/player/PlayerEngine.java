@@ -12,7 +12,10 @@
 
 package com.kaltura.playkit.player;
 
+import com.kaltura.playkit.PKBufferProfile;
 import com.kaltura.playkit.PlaybackInfo;
+import com.kaltura.playkit.PlayerEvent;
+import com.kaltura.playkit.QosMetrics;
 import com.kaltura.playkit.player.metadata.PKMetadata;
 import com.kaltura.playkit.utils.Consts;
 import com.kaltura.playkit.PKError;
@@ -109,6 +112,25 @@ interface PlayerEngine {
      */
     void seekTo(long position);
 
+    /**
+     * Enter or leave scrubbing mode. While scrubbing, seeks are coalesced and SEEKING/SEEKED are sent once;
+     * leaving the mode runs a final seek to the last requested position.
+     * @param scrubbing - true when the scrub gesture starts, false when it ends.
+     */
+    void setScrubbing(boolean scrubbing);
+
+    /**
+     * @return - true if the current media is a live stream.
+     */
+    boolean isLiveStream();
+
+    /**
+     * Change the playback speed, keeping the pitch.
+     * @param speed - 1 for normal speed.
+     * @return - false if the engine can't change speed on this device.
+     */
+    boolean setPlaybackSpeed(float speed);
+
     /**
      * Start players playback from the specified position.
      * Note! The position is passed in seconds.
@@ -167,6 +189,25 @@ interface PlayerEngine {
      */
     void destroy();
 
+    /**
+     * Bring the engine back to idle, dropping the loaded media but keeping what is expensive to build
+     * (the player instance, its view and surface, bandwidth meter and data source factories), so the
+     * engine can load another source. Listeners are not notified.
+     */
+    void reset();
+
+    /**
+     * Set the buffering limits. Takes effect right away, also in the middle of playback.
+     * @param bufferProfile - the limits.
+     */
+    void setBufferProfile(PKBufferProfile bufferProfile);
+
+    /**
+     * Read media segments through the given disk cache. Takes effect on the next load.
+     * @param segmentCache - the cache, or null to read from the network only.
+     */
+    void setSegmentCache(MediaSegmentCache segmentCache);
+
     /**
      * Holds current media url(as String), current playing video and audio bitrates.
      * @return the playback params data object of the current media.
@@ -174,6 +215,18 @@ interface PlayerEngine {
      */
     PlaybackInfo getPlaybackInfo();
 
+    /**
+     * Same data as {@link #getPlaybackInfo()}, in a reused event, see {@link PlayerEvent.PlaybackInfoUpdated#obtain}.
+     * Keeps the frequent playback info updates allocation-free.
+     * @return the event, owned by the caller until it's posted.
+     */
+    PlayerEvent.PlaybackInfoUpdated obtainPlaybackInfoUpdated();
+
+    /**
+     * @return - the QoS counters of the current media, or null if the engine doesn't collect them.
+     */
+    QosMetrics getQosMetrics();
+
     /**
      * Return the ExceptionInfo object, which holds the last error that happened,
      * and counter, which holds amount of the same exception that happened in a row.
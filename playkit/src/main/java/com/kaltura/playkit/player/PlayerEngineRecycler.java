@@ -0,0 +1,94 @@
+/*
+ * ============================================================================
+ * Copyright (C) 2017 Kaltura Inc.
+ * 
+ * Licensed under the AGPLv3 license, unless a different license for a
+ * particular library is specified in the applicable library path.
+ * 
+ * You may obtain a copy of the License at
+ * https://www.gnu.org/licenses/agpl-3.0.html
+ * ============================================================================
+ */
+
+package com.kaltura.playkit.player;
+
+import android.content.Context;
+
+import com.kaltura.playkit.PKLog;
+import com.kaltura.playkit.PKMediaFormat;
+
+/**
+ * Keeps one idle engine of each family (ExoPlayer and MediaPlayer), so switching between formats
+ * or entries doesn't rebuild the player, its view and its bandwidth meter every time.
+ */
+class PlayerEngineRecycler {
+
+    private static final PKLog log = PKLog.get("PlayerEngineRecycler");
+
+    private Context context;
+    private ExoPlayerWrapper idleExoPlayer;
+    private MediaPlayerWrapper idleMediaPlayer;
+
+    PlayerEngineRecycler(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * @return an idle engine that can play the given format, reused if there is one.
+     */
+    PlayerEngine obtain(PKMediaFormat mediaFormat) {
+        return mediaFormat == PKMediaFormat.wvm ? obtainMediaPlayer() : obtainExoPlayer();
+    }
+
+    ExoPlayerWrapper obtainExoPlayer() {
+        ExoPlayerWrapper engine = idleExoPlayer;
+        idleExoPlayer = null;
+        if (engine == null) {
+            engine = new ExoPlayerWrapper(context);
+        } else {
+            log.d("Reusing idle ExoPlayerWrapper");
+        }
+        return engine;
+    }
+
+    MediaPlayerWrapper obtainMediaPlayer() {
+        MediaPlayerWrapper engine = idleMediaPlayer;
+        idleMediaPlayer = null;
+        if (engine == null) {
+            engine = new MediaPlayerWrapper(context);
+        } else {
+            log.d("Reusing idle MediaPlayerWrapper");
+        }
+        return engine;
+    }
+
+    /**
+     * Reset an engine that is no longer used and keep it for later. The caller must have removed its
+     * listeners. If an engine of that family is already kept, this one is destroyed.
+     */
+    void recycle(PlayerEngine engine) {
+        if (engine instanceof ExoPlayerWrapper && idleExoPlayer == null) {
+            engine.reset();
+            idleExoPlayer = (ExoPlayerWrapper) engine;
+        } else if (engine instanceof MediaPlayerWrapper && idleMediaPlayer == null) {
+            engine.reset();
+            idleMediaPlayer = (MediaPlayerWrapper) engine;
+        } else {
+            engine.destroy();
+        }
+    }
+
+    /**
+     * Destroy the kept engines, e.g. when the player is destroyed or the app goes to background.
+     */
+    void clear() {
+        if (idleExoPlayer != null) {
+            idleExoPlayer.destroy();
+            idleExoPlayer = null;
+        }
+        if (idleMediaPlayer != null) {
+            idleMediaPlayer.destroy();
+            idleMediaPlayer = null;
+        }
+    }
+}
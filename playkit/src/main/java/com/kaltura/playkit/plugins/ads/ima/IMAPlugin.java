@@ -42,6 +42,7 @@ import com.kaltura.playkit.PKPlugin;
 import com.kaltura.playkit.Player;
 import com.kaltura.playkit.PlayerDecorator;
 import com.kaltura.playkit.PlayerEvent;
+import com.kaltura.playkit.PlayerSnapshot;
 import com.kaltura.playkit.ads.AdEnabledPlayerController;
 import com.kaltura.playkit.ads.AdTagType;
 import com.kaltura.playkit.ads.PKAdInfo;
@@ -455,8 +456,9 @@ public class IMAPlugin extends PKPlugin implements AdsProvider, com.google.ads.i
                 if (adsManager == null || player == null) {
                     return VideoProgressUpdate.VIDEO_TIME_NOT_READY;
                 }
-                long currentPosition = player.getCurrentPosition();
-                long duration = player.getDuration();
+                PlayerSnapshot snapshot = player.getSnapshot();
+                long currentPosition = snapshot.getEstimatedPosition();
+                long duration = snapshot.getDuration();
 
                 if (isAdDisplayed || currentPosition < 0 || duration <= 0) {
                     return VideoProgressUpdate.VIDEO_TIME_NOT_READY;
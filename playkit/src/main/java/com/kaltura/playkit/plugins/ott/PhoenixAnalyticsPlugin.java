@@ -27,6 +27,7 @@ import com.kaltura.playkit.PKMediaConfig;
 import com.kaltura.playkit.PKPlugin;
 import com.kaltura.playkit.Player;
 import com.kaltura.playkit.PlayerEvent;
+import com.kaltura.playkit.PlayerSnapshot;
 import com.kaltura.playkit.api.phoenix.services.BookmarkService;
 import com.kaltura.playkit.utils.Consts;
 
@@ -99,6 +100,7 @@ public class PhoenixAnalyticsPlugin extends PKPlugin {
         this.timer = new Timer();
         setConfigMembers(config);
         if (baseUrl != null && !baseUrl.isEmpty() && partnerId > 0) {
+            // Stays on the main lane: the listener shares the timer and its state with the lifecycle callbacks.
             messageBus.listen(mEventListener, PlayerEvent.Type.PLAY, PlayerEvent.Type.PAUSE, PlayerEvent.Type.ENDED, PlayerEvent.Type.ERROR, PlayerEvent.Type.LOADED_METADATA, PlayerEvent.Type.STOPPED, PlayerEvent.Type.REPLAY, PlayerEvent.Type.SEEKED, PlayerEvent.Type.SOURCE_SELECTED);
         } else {
             log.e("Error, base url/partner - incorrect");
@@ -233,8 +235,9 @@ public class PhoenixAnalyticsPlugin extends PKPlugin {
             @Override
             public void run() {
                 sendAnalyticsEvent(PhoenixActionType.HIT);
-                lastKnownPlayerPosition = player.getCurrentPosition() / Consts.MILLISECONDS_MULTIPLIER;
-                if ((float) lastKnownPlayerPosition / player.getDuration() > MEDIA_ENDED_THRESHOLD) {
+                PlayerSnapshot snapshot = player.getSnapshot();
+                lastKnownPlayerPosition = snapshot.getPosition() / Consts.MILLISECONDS_MULTIPLIER;
+                if ((float) lastKnownPlayerPosition / snapshot.getDuration() > MEDIA_ENDED_THRESHOLD) {
                     sendAnalyticsEvent(PhoenixActionType.FINISH);
                     isMediaFinished = true;
                 }
@@ -250,7 +253,7 @@ public class PhoenixAnalyticsPlugin extends PKPlugin {
     protected void sendAnalyticsEvent(final PhoenixActionType eventType) {
 
         if (eventType != PhoenixActionType.STOP) {
-            lastKnownPlayerPosition = player.getCurrentPosition() / Consts.MILLISECONDS_MULTIPLIER;
+            lastKnownPlayerPosition = player.getSnapshot().getPosition() / Consts.MILLISECONDS_MULTIPLIER;
         }
         RequestBuilder requestBuilder = BookmarkService.actionAdd(baseUrl, partnerId, ks,
                 "media", mediaConfig.getMediaEntry().getId(), eventType.name(), lastKnownPlayerPosition, fileId);
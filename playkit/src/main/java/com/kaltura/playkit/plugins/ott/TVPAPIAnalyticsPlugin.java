@@ -102,7 +102,7 @@ public class TVPAPIAnalyticsPlugin extends PhoenixAnalyticsPlugin {
         }
 
         if (eventType != PhoenixActionType.STOP) {
-            lastKnownPlayerPosition = player.getCurrentPosition() / Consts.MILLISECONDS_MULTIPLIER;
+            lastKnownPlayerPosition = player.getSnapshot().getPosition() / Consts.MILLISECONDS_MULTIPLIER;
         }
         RequestBuilder requestBuilder = MediaMarkService.sendTVPAPIEvent(baseUrl + "m=" + method, initObject, action,
                 mediaConfig.getMediaEntry().getId(), this.fileId, lastKnownPlayerPosition);
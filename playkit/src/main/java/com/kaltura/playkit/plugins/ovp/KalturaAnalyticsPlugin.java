@@ -29,10 +29,13 @@ import com.kaltura.playkit.PKPlugin;
 import com.kaltura.playkit.PlayKitManager;
 import com.kaltura.playkit.Player;
 import com.kaltura.playkit.PlayerEvent;
+import com.kaltura.playkit.PlayerSnapshot;
+import com.kaltura.playkit.PlayerState;
 import com.kaltura.playkit.Utils;
 import com.kaltura.playkit.api.ovp.services.AnalyticsService;
 import com.kaltura.playkit.utils.Consts;
 
+import java.util.EnumSet;
 import java.util.TimerTask;
 
 /**
@@ -117,7 +120,15 @@ public class KalturaAnalyticsPlugin extends PKPlugin{
 
     @Override
     protected void onLoad(Player player, Object config, final MessageBus messageBus, Context context) {
-        messageBus.listen(mEventListener, (Enum[]) PlayerEvent.Type.values());
+        messageBus.listen(mEventListener, null, EnumSet.of(PlayerEvent.Type.REPLAY, PlayerEvent.Type.PAUSE,
+                PlayerEvent.Type.PLAY, PlayerEvent.Type.PLAYING, PlayerEvent.Type.SEEKED));
+        // Only READY is reported, skip the rest of the state changes.
+        messageBus.listen(mEventListener, new MessageBus.ListenOptions().setFilter(new MessageBus.Filter() {
+            @Override
+            public boolean accept(PKEvent event) {
+                return ((PlayerEvent.StateChanged) event).newState == PlayerState.READY;
+            }
+        }), PlayerEvent.Type.STATE_CHANGED);
         this.requestsExecutor = APIOkRequestsExecutor.getSingleton();
         this.player = player;
         this.pluginConfig = (JsonObject) config;
@@ -267,7 +278,8 @@ public class KalturaAnalyticsPlugin extends PKPlugin{
         timer.scheduleAtFixedRate(new TimerTask() {
             @Override
             public void run() {
-                float progress = (float) player.getCurrentPosition() / player.getDuration();
+                PlayerSnapshot snapshot = player.getSnapshot();
+                float progress = (float) snapshot.getPosition() / snapshot.getDuration();
                 if (progress >= 0.25 && !playReached25 && seekPercent <= 0.25) {
                     playReached25 = true;
                     sendAnalyticsEvent(KAnalonyEvents.PLAY_25PERCENT);
@@ -291,7 +303,7 @@ public class KalturaAnalyticsPlugin extends PKPlugin{
         int flavourId = -1;
 
         RequestBuilder requestBuilder = AnalyticsService.sendAnalyticsEvent(baseUrl, partnerId, eventType.getValue(), PlayKitManager.CLIENT_TAG, playbackType,
-                sessionId, player.getCurrentPosition(), uiconfId, mediaConfig.getMediaEntry().getId(), eventIdx++, flavourId, bufferTime, currentBitrate, "hls");
+                sessionId, player.getSnapshot().getPosition(), uiconfId, mediaConfig.getMediaEntry().getId(), eventIdx++, flavourId, bufferTime, currentBitrate, "hls");
 
         requestBuilder.completion(new OnRequestCompletion() {
             @Override
@@ -30,6 +30,7 @@ import com.kaltura.playkit.PlayKitManager;
 import com.kaltura.playkit.PlaybackInfo;
 import com.kaltura.playkit.Player;
 import com.kaltura.playkit.PlayerEvent;
+import com.kaltura.playkit.PlayerSnapshot;
 import com.kaltura.playkit.api.ovp.services.LiveStatsService;
 import com.kaltura.playkit.utils.Consts;
 
@@ -101,6 +102,7 @@ public class KalturaLiveStatsPlugin extends PKPlugin {
         this.messageBus = messageBus;
         this.pluginConfig = parseConfig(config);
         this.requestsExecutor = APIOkRequestsExecutor.getSingleton();
+        // Main lane: start/stopLiveEvents() touch the same timer and flags as onApplicationPaused()/onUpdateMedia().
         this.messageBus.listen(mEventListener, PlayerEvent.Type.STATE_CHANGED, PlayerEvent.Type.PAUSE, PlayerEvent.Type.PLAY, PlayerEvent.Type.PLAYBACK_INFO_UPDATED, PlayerEvent.Type.SOURCE_SELECTED);
     }
 
@@ -236,7 +238,8 @@ public class KalturaLiveStatsPlugin extends PKPlugin {
 
         long distanceFromLive = 0;
         if (player != null) {
-            distanceFromLive = player.getDuration() - player.getCurrentPosition();
+            PlayerSnapshot snapshot = player.getSnapshot();
+            distanceFromLive = snapshot.getDuration() - snapshot.getPosition();
         }
 
         RequestBuilder requestBuilder = LiveStatsService.sendLiveStatsEvent(pluginConfig.getBaseUrl(),
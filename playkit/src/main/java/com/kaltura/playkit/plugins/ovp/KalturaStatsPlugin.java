@@ -29,12 +29,14 @@ import com.kaltura.playkit.PKPlugin;
 import com.kaltura.playkit.PlayKitManager;
 import com.kaltura.playkit.Player;
 import com.kaltura.playkit.PlayerEvent;
+import com.kaltura.playkit.PlayerSnapshot;
 import com.kaltura.playkit.api.ovp.services.StatsService;
 import com.kaltura.playkit.plugins.ads.AdEvent;
 import com.kaltura.playkit.plugins.ads.AdInfo;
 import com.kaltura.playkit.plugins.ads.AdPositionType;
 import com.kaltura.playkit.utils.Consts;
 
+import java.util.EnumSet;
 import java.util.TimerTask;
 
 /**
@@ -129,8 +131,13 @@ public class KalturaStatsPlugin extends PKPlugin {
     @Override
     protected void onLoad(Player player, Object config, final MessageBus messageBus, Context context) {
         log.d("onLoad");
-        messageBus.listen(mEventListener, (Enum[]) PlayerEvent.Type.values());
-        messageBus.listen(mEventListener, (Enum[]) AdEvent.Type.values());
+        // Stays on the main lane: the listener reads the player and shares its state with the lifecycle callbacks.
+        messageBus.listen(mEventListener, null, EnumSet.of(PlayerEvent.Type.METADATA_AVAILABLE,
+                PlayerEvent.Type.STATE_CHANGED, PlayerEvent.Type.ERROR, PlayerEvent.Type.SEEKED, PlayerEvent.Type.PLAYING,
+                PlayerEvent.Type.REPLAY, PlayerEvent.Type.DURATION_CHANGE, PlayerEvent.Type.ENDED));
+        messageBus.listen(mEventListener, null, EnumSet.of(AdEvent.Type.STARTED, AdEvent.Type.PAUSED,
+                AdEvent.Type.RESUMED, AdEvent.Type.COMPLETED, AdEvent.Type.FIRST_QUARTILE, AdEvent.Type.MIDPOINT,
+                AdEvent.Type.THIRD_QUARTILE, AdEvent.Type.CLICKED, AdEvent.Type.ERROR));
         this.requestsExecutor = APIOkRequestsExecutor.getSingleton();
         this.player = player;
         this.pluginConfig = parseConfig(config);
@@ -437,7 +444,8 @@ public class KalturaStatsPlugin extends PKPlugin {
         timer.scheduleAtFixedRate(new TimerTask() {
             @Override
             public void run() {
-                float progress = ((float) player.getCurrentPosition() / player.getDuration());
+                PlayerSnapshot snapshot = player.getSnapshot();
+                float progress = ((float) snapshot.getPosition() / snapshot.getDuration());
                 log.d("progress = " + progress + " seekPercent = " + seekPercent);
                 if (!playReached25 && progress >= 0.25 && seekPercent < 0.5) {
                     sendPlayReached25();
@@ -461,10 +469,12 @@ public class KalturaStatsPlugin extends PKPlugin {
     private void sendAnalyticsEvent(final KStatsEvent eventType) {
         String sessionId = (player.getSessionId() != null) ? player.getSessionId() : "";
 
-        long duration = player.getDuration() == Consts.TIME_UNSET ? -1 : player.getDuration() / Consts.MILLISECONDS_MULTIPLIER;
+        // Also called from the timer thread, so read the snapshot rather than the player.
+        PlayerSnapshot snapshot = player.getSnapshot();
+        long duration = snapshot.getDuration() == Consts.TIME_UNSET ? -1 : snapshot.getDuration() / Consts.MILLISECONDS_MULTIPLIER;
 
         final RequestBuilder requestBuilder = StatsService.sendStatsEvent(pluginConfig.getBaseUrl(), pluginConfig.getPartnerId(), eventType.getValue(), PlayKitManager.CLIENT_TAG, duration,
-                sessionId, player.getCurrentPosition(), pluginConfig.getUiconfId(), pluginConfig.getEntryId(), "_" + pluginConfig.getPartnerId(), hasSeeked,
+                sessionId, snapshot.getPosition(), pluginConfig.getUiconfId(), pluginConfig.getEntryId(), "_" + pluginConfig.getPartnerId(), hasSeeked,
                 pluginConfig.getContextId(), context.getPackageName(), pluginConfig.getUserId());
 
         requestBuilder.completion(new OnRequestCompletion() {
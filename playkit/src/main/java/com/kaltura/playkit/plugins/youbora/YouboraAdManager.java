@@ -27,6 +27,8 @@ import com.npaw.youbora.plugins.PluginGeneric;
 import com.npaw.youbora.youboralib.BuildConfig;
 import com.npaw.youbora.youboralib.utils.YBLog;
 
+import java.util.EnumSet;
+
 import static com.kaltura.playkit.PlayerEvent.Type.STATE_CHANGED;
 
 /**
@@ -53,7 +55,8 @@ class YouboraAdManager extends AdnalyzerGeneric {
         this.messageBus = messageBus;
 
         this.messageBus.listen(mEventListener, STATE_CHANGED);
-        this.messageBus.listen(mEventListener, (Enum[]) AdEvent.Type.values());
+        // Ad progress is never reported, don't wake up for it.
+        this.messageBus.listen(mEventListener, null, EnumSet.complementOf(EnumSet.of(AdEvent.Type.AD_PROGRESS)));
     }
 
     private void onEvent(PlayerEvent.StateChanged event) {
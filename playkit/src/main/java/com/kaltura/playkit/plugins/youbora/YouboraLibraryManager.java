@@ -31,6 +31,7 @@ import com.npaw.youbora.youboralib.utils.Utils;
 
 import org.json.JSONException;
 
+import java.util.EnumSet;
 import java.util.Map;
 
 import static com.kaltura.playkit.PlayerEvent.Type.STATE_CHANGED;
@@ -68,8 +69,12 @@ class YouboraLibraryManager extends PluginGeneric {
         this.messageBus = messageBus;
         this.mediaConfig = mediaConfig;
 
-        messageBus.listen(mEventListener, (Enum[]) PlayerEvent.Type.values());
-        messageBus.listen(mEventListener, (Enum[]) AdEvent.Type.values());
+        messageBus.listen(mEventListener, null, EnumSet.of(PlayerEvent.Type.PLAYBACK_INFO_UPDATED,
+                PlayerEvent.Type.DURATION_CHANGE, PlayerEvent.Type.STATE_CHANGED, PlayerEvent.Type.ENDED,
+                PlayerEvent.Type.ERROR, PlayerEvent.Type.PAUSE, PlayerEvent.Type.PLAY, PlayerEvent.Type.PLAYING,
+                PlayerEvent.Type.SEEKED, PlayerEvent.Type.SEEKING));
+        messageBus.listen(mEventListener, null, EnumSet.of(AdEvent.Type.STARTED, AdEvent.Type.CONTENT_RESUME_REQUESTED,
+                AdEvent.Type.CUEPOINTS_CHANGED, AdEvent.Type.ALL_ADS_COMPLETED));
     }
 
     protected void init() {
@@ -71,4 +71,8 @@ public class Consts {
     public static final int DEFAULT_ANALYTICS_TIMER_INTERVAL_HIGH = 30000;
 
     public static final int DEFAULT_ANALYTICS_TIMER_INTERVAL_HIGH_SEC = 30;
+
+    public static final long DEFAULT_EVENT_COALESCING_WINDOW_MS = 500;
+
+    public static final int DEFAULT_EVENT_QUEUE_CAPACITY = 256;
 }
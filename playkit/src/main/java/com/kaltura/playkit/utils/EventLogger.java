@@ -12,8 +12,10 @@
 
 package com.kaltura.playkit.utils;
 
+import android.os.SystemClock;
 import android.view.Surface;
 
+import com.google.android.exoplayer2.C;
 import com.google.android.exoplayer2.ExoPlaybackException;
 import com.google.android.exoplayer2.ExoPlayer;
 import com.google.android.exoplayer2.Format;
@@ -29,6 +31,8 @@ import com.google.android.exoplayer2.source.TrackGroupArray;
 import com.google.android.exoplayer2.trackselection.TrackSelectionArray;
 import com.google.android.exoplayer2.upstream.DataSpec;
 import com.google.android.exoplayer2.video.VideoRendererEventListener;
+import com.kaltura.playkit.QosMetrics;
+import com.kaltura.playkit.StartupTracer;
 
 import java.io.IOException;
 
@@ -39,7 +43,97 @@ import java.io.IOException;
 public class EventLogger implements ExoPlayer.EventListener, AudioRendererEventListener, VideoRendererEventListener,  MetadataRenderer.Output,
         AdaptiveMediaSourceEventListener, ExtractorMediaSource.EventListener, DefaultDrmSessionManager.EventListener {
 
+    // Indexes of the load counters.
+    private static final int LOADS_VIDEO = 0;
+    private static final int LOADS_AUDIO = 1;
+    private static final int LOADS_TEXT = 2;
+    private static final int LOADS_OTHER = 3;
+
+    private StartupTracer startupTracer;
+    private boolean videoEnabled;
+
+    // QoS counters of the current media, guarded by this.
+    private long playingTimeMs;
+    private long playingSince = C.TIME_UNSET;
+    private int droppedFrames;
+    private int audioUnderruns;
+    private String videoDecoderName;
+    private long videoDecoderInitMs = Consts.TIME_UNSET;
+    private String audioDecoderName;
+    private long audioDecoderInitMs = Consts.TIME_UNSET;
+    private final int[] loadCount = new int[4];
+    private final int[] loadErrors = new int[4];
+    private final long[] loadDurations = new long[4];
+    private final long[] loadedBytes = new long[4];
+
+    /**
+     * Report the startup phases seen by the player (manifest, DRM keys, first ready and first frame) to the tracer.
+     * Pass null to stop reporting.
+     */
+    public void setStartupTracer(StartupTracer startupTracer) {
+        this.startupTracer = startupTracer;
+        this.videoEnabled = false;
+    }
+
+    /**
+     * Start counting from zero, for a new media.
+     */
+    public synchronized void resetQosMetrics() {
+        playingTimeMs = 0;
+        playingSince = playingSince == C.TIME_UNSET ? C.TIME_UNSET : SystemClock.elapsedRealtime();
+        droppedFrames = 0;
+        audioUnderruns = 0;
+        videoDecoderName = null;
+        videoDecoderInitMs = Consts.TIME_UNSET;
+        audioDecoderName = null;
+        audioDecoderInitMs = Consts.TIME_UNSET;
+        for (int i = 0; i < loadCount.length; i++) {
+            loadCount[i] = 0;
+            loadErrors[i] = 0;
+            loadDurations[i] = 0;
+            loadedBytes[i] = 0;
+        }
+    }
 
+    /**
+     * @return - the QoS counters collected since the last {@link #resetQosMetrics()}.
+     */
+    public synchronized QosMetrics getQosMetrics() {
+        long playingTime = playingTimeMs;
+        if (playingSince != C.TIME_UNSET) {
+            playingTime += SystemClock.elapsedRealtime() - playingSince;
+        }
+        return new QosMetrics(playingTime, droppedFrames, audioUnderruns,
+                videoDecoderName, videoDecoderInitMs, audioDecoderName, audioDecoderInitMs,
+                getLoadStats(LOADS_VIDEO), getLoadStats(LOADS_AUDIO), getLoadStats(LOADS_TEXT), getLoadStats(LOADS_OTHER));
+    }
+
+    private QosMetrics.LoadStats getLoadStats(int index) {
+        return new QosMetrics.LoadStats(loadCount[index], loadErrors[index], loadDurations[index], loadedBytes[index]);
+    }
+
+    private static int loadsIndex(int trackType) {
+        switch (trackType) {
+            case C.TRACK_TYPE_VIDEO:
+                return LOADS_VIDEO;
+            case C.TRACK_TYPE_AUDIO:
+                return LOADS_AUDIO;
+            case C.TRACK_TYPE_TEXT:
+                return LOADS_TEXT;
+            default:
+                return LOADS_OTHER;
+        }
+    }
+
+    /**
+     * Called by the DRM session manager when a renderer asks for a DRM session.
+     */
+    public void onDrmSessionAcquired() {
+        StartupTracer tracer = startupTracer;
+        if (tracer != null) {
+            tracer.start(StartupTracer.Phase.DRM_KEYS);
+        }
+    }
 
     @Override
     public void onLoadingChanged(boolean isLoading) {
@@ -48,7 +142,24 @@ public class EventLogger implements ExoPlayer.EventListener, AudioRendererEventL
 
     @Override
     public void onPlayerStateChanged(boolean playWhenReady, int playbackState) {
-
+        synchronized (this) {
+            boolean playing = playWhenReady && playbackState == ExoPlayer.STATE_READY;
+            if (playing && playingSince == C.TIME_UNSET) {
+                playingSince = SystemClock.elapsedRealtime();
+            } else if (!playing && playingSince != C.TIME_UNSET) {
+                playingTimeMs += SystemClock.elapsedRealtime() - playingSince;
+                playingSince = C.TIME_UNSET;
+            }
+        }
+
+        StartupTracer tracer = startupTracer;
+        if (tracer != null && playbackState == ExoPlayer.STATE_READY) {
+            tracer.end(StartupTracer.Phase.FIRST_READY);
+            if (!videoEnabled) {
+                // Audio only, there won't be a first frame.
+                tracer.complete();
+            }
+        }
     }
 
     @Override
@@ -82,8 +193,9 @@ public class EventLogger implements ExoPlayer.EventListener, AudioRendererEventL
     }
 
     @Override
-    public void onAudioDecoderInitialized(String decoderName, long initializedTimestampMs, long initializationDurationMs) {
-
+    public synchronized void onAudioDecoderInitialized(String decoderName, long initializedTimestampMs, long initializationDurationMs) {
+        audioDecoderName = decoderName;
+        audioDecoderInitMs = initializationDurationMs;
     }
 
     @Override
@@ -92,8 +204,8 @@ public class EventLogger implements ExoPlayer.EventListener, AudioRendererEventL
     }
 
     @Override
-    public void onAudioTrackUnderrun(int bufferSize, long bufferSizeMs, long elapsedSinceLastFeedMs) {
-
+    public synchronized void onAudioTrackUnderrun(int bufferSize, long bufferSizeMs, long elapsedSinceLastFeedMs) {
+        audioUnderruns++;
     }
 
     @Override
@@ -103,7 +215,10 @@ public class EventLogger implements ExoPlayer.EventListener, AudioRendererEventL
 
     @Override
     public void onDrmKeysLoaded() {
-
+        StartupTracer tracer = startupTracer;
+        if (tracer != null) {
+            tracer.end(StartupTracer.Phase.DRM_KEYS);
+        }
     }
 
     @Override
@@ -113,7 +228,10 @@ public class EventLogger implements ExoPlayer.EventListener, AudioRendererEventL
 
     @Override
     public void onDrmKeysRestored() {
-
+        StartupTracer tracer = startupTracer;
+        if (tracer != null) {
+            tracer.end(StartupTracer.Phase.DRM_KEYS);
+        }
     }
 
     @Override
@@ -123,12 +241,25 @@ public class EventLogger implements ExoPlayer.EventListener, AudioRendererEventL
 
     @Override
     public void onLoadStarted(DataSpec dataSpec, int dataType, int trackType, Format trackFormat, int trackSelectionReason, Object trackSelectionData, long mediaStartTimeMs, long mediaEndTimeMs, long elapsedRealtimeMs) {
-
+        StartupTracer tracer = startupTracer;
+        if (tracer != null && dataType == C.DATA_TYPE_MANIFEST) {
+            tracer.start(StartupTracer.Phase.MANIFEST_LOAD);
+        }
     }
 
     @Override
     public void onLoadCompleted(DataSpec dataSpec, int dataType, int trackType, Format trackFormat, int trackSelectionReason, Object trackSelectionData, long mediaStartTimeMs, long mediaEndTimeMs, long elapsedRealtimeMs, long loadDurationMs, long bytesLoaded) {
-
+        synchronized (this) {
+            int index = loadsIndex(trackType);
+            loadCount[index]++;
+            loadDurations[index] += loadDurationMs;
+            loadedBytes[index] += bytesLoaded;
+        }
+
+        StartupTracer tracer = startupTracer;
+        if (tracer != null && dataType == C.DATA_TYPE_MANIFEST) {
+            tracer.end(StartupTracer.Phase.MANIFEST_LOAD);
+        }
     }
 
     @Override
@@ -137,8 +268,8 @@ public class EventLogger implements ExoPlayer.EventListener, AudioRendererEventL
     }
 
     @Override
-    public void onLoadError(DataSpec dataSpec, int dataType, int trackType, Format trackFormat, int trackSelectionReason, Object trackSelectionData, long mediaStartTimeMs, long mediaEndTimeMs, long elapsedRealtimeMs, long loadDurationMs, long bytesLoaded, IOException error, boolean wasCanceled) {
-
+    public synchronized void onLoadError(DataSpec dataSpec, int dataType, int trackType, Format trackFormat, int trackSelectionReason, Object trackSelectionData, long mediaStartTimeMs, long mediaEndTimeMs, long elapsedRealtimeMs, long loadDurationMs, long bytesLoaded, IOException error, boolean wasCanceled) {
+        loadErrors[loadsIndex(trackType)]++;
     }
 
     @Override
@@ -158,12 +289,13 @@ public class EventLogger implements ExoPlayer.EventListener, AudioRendererEventL
 
     @Override
     public void onVideoEnabled(DecoderCounters counters) {
-
+        videoEnabled = true;
     }
 
     @Override
-    public void onVideoDecoderInitialized(String decoderName, long initializedTimestampMs, long initializationDurationMs) {
-
+    public synchronized void onVideoDecoderInitialized(String decoderName, long initializedTimestampMs, long initializationDurationMs) {
+        videoDecoderName = decoderName;
+        videoDecoderInitMs = initializationDurationMs;
     }
 
     @Override
@@ -172,8 +304,8 @@ public class EventLogger implements ExoPlayer.EventListener, AudioRendererEventL
     }
 
     @Override
-    public void onDroppedFrames(int count, long elapsedMs) {
-
+    public synchronized void onDroppedFrames(int count, long elapsedMs) {
+        droppedFrames += count;
     }
 
     @Override
@@ -183,7 +315,11 @@ public class EventLogger implements ExoPlayer.EventListener, AudioRendererEventL
 
     @Override
     public void onRenderedFirstFrame(Surface surface) {
-
+        StartupTracer tracer = startupTracer;
+        if (tracer != null) {
+            tracer.end(StartupTracer.Phase.FIRST_FRAME);
+            tracer.complete();
+        }
     }
 
     @Override
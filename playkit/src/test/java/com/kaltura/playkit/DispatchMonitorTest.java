@@ -0,0 +1,49 @@
+package com.kaltura.playkit;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class DispatchMonitorTest {
+
+    static class TestListener implements PKEvent.Listener {
+        @Override
+        public void onEvent(PKEvent event) {
+        }
+    }
+
+    @Test
+    public void testStatsAreKeptPerListenerClass() {
+        DispatchMonitor monitor = new DispatchMonitor(4);
+
+        assertFalse(monitor.record(new TestListener(), PlayerEvent.Type.PLAY, 150 * 1000));
+        assertTrue(monitor.record(new TestListener(), PlayerEvent.Type.PLAY, 5000 * 1000));
+        monitor.record(new TestListener(), PlayerEvent.Type.PAUSE, 50 * 1000);
+
+        List<DispatchMonitor.ListenerStats> stats = monitor.getStats();
+        assertEquals(2, stats.size());
+        for (DispatchMonitor.ListenerStats entry : stats) {
+            assertEquals(TestListener.class.getName(), entry.listenerName);
+            if (entry.eventType == PlayerEvent.Type.PLAY) {
+                assertEquals(2, entry.count);
+                assertEquals(5000, entry.maxMicros);
+                assertEquals(2575, entry.getAverageMicros());
+                assertEquals(1, entry.overBudgetCount);
+                assertEquals(1, entry.histogram[1]);
+                assertEquals(1, entry.histogram[6]);
+            } else {
+                assertEquals(PlayerEvent.Type.PAUSE, entry.eventType);
+                assertEquals(1, entry.count);
+                assertEquals(1, entry.histogram[0]);
+            }
+        }
+
+        monitor.reset();
+        assertTrue(monitor.getStats().isEmpty());
+    }
+}
@@ -0,0 +1,140 @@
+package com.kaltura.playkit;
+
+import com.kaltura.playkit.player.PKPlayerErrorType;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class EventJournalTest {
+
+    enum TestType {
+        CUSTOM
+    }
+
+    private static final Enum[] REPLAYED_TYPES = {PlayerEvent.Type.STATE_CHANGED, PlayerEvent.Type.DURATION_CHANGE,
+            PlayerEvent.Type.VOLUME_CHANGED, PlayerEvent.Type.PLAYBACK_INFO_UPDATED, PlayerEvent.Type.ERROR, PlayerEvent.Type.PLAY,
+            TestType.CUSTOM, EventJournal.PlayerCall.Type.PLAYER_CALL};
+
+    private MessageBus recordingBus;
+    private EventJournal journal;
+    private final List<PKEvent> replayed = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        journal = new EventJournal();
+        recordingBus = new MessageBus();
+        recordingBus.setEventJournal(journal);
+    }
+
+    private int dumpAndReplay() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        journal.dump(out);
+
+        MessageBus replayBus = new MessageBus();
+        replayBus.listen(new PKEvent.Listener() {
+            @Override
+            public void onEvent(PKEvent event) {
+                replayed.add(event);
+            }
+        }, new MessageBus.ListenOptions().setLane(MessageBus.Lane.POSTING), REPLAYED_TYPES);
+        return EventJournal.replay(new ByteArrayInputStream(out.toByteArray()), replayBus, false);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        recordingBus.post(new PlayerEvent.StateChanged(PlayerState.READY, PlayerState.BUFFERING));
+        recordingBus.post(new PlayerEvent.DurationChanged(60000));
+        recordingBus.post(new PlayerEvent.VolumeChanged(0.5f));
+        recordingBus.post(new PlayerEvent.PlaybackInfoUpdated(new PlaybackInfo("http://example.com/a.mpd", 1000, 128, 5000, 640, 360, true)));
+        recordingBus.post(new PlayerEvent.Error(new PKError(PKPlayerErrorType.SOURCE_ERROR, "failed", null)));
+        recordingBus.post(new PlayerEvent.Generic(PlayerEvent.Type.PLAY));
+        recordingBus.post(new PKEvent() {
+            @Override
+            public Enum eventType() {
+                return TestType.CUSTOM;
+            }
+        });
+        journal.recordPlayerCall("seekTo", 5000L);
+        journal.recordPlayerCall("play", null);
+        assertEquals(9, journal.getRecordCount());
+
+        assertEquals(9, dumpAndReplay());
+        assertEquals(9, replayed.size());
+
+        PlayerEvent.StateChanged stateChanged = (PlayerEvent.StateChanged) replayed.get(0);
+        assertEquals(PlayerState.READY, stateChanged.newState);
+        assertEquals(PlayerState.BUFFERING, stateChanged.oldState);
+
+        assertEquals(60000, ((PlayerEvent.DurationChanged) replayed.get(1)).duration);
+        assertEquals(0.5f, ((PlayerEvent.VolumeChanged) replayed.get(2)).volume, 0);
+
+        PlaybackInfo playbackInfo = ((PlayerEvent.PlaybackInfoUpdated) replayed.get(3)).playbackInfo;
+        assertEquals(1000, playbackInfo.getVideoBitrate());
+        assertEquals(128, playbackInfo.getAudioBitrate());
+        assertEquals(5000, playbackInfo.getVideoThroughput());
+        assertEquals(640, playbackInfo.getVideoWidth());
+        assertEquals(360, playbackInfo.getVideoHeight());
+        assertTrue(playbackInfo.getIsLiveStream());
+
+        PKError error = ((PlayerEvent.Error) replayed.get(4)).error;
+        assertEquals(PKPlayerErrorType.SOURCE_ERROR, error.errorType);
+        assertEquals("failed", error.message);
+
+        assertEquals(PlayerEvent.Type.PLAY, replayed.get(5).eventType());
+        assertTrue(replayed.get(5) instanceof PlayerEvent.Generic);
+        assertEquals(TestType.CUSTOM, replayed.get(6).eventType());
+        assertTrue(replayed.get(6) instanceof EventJournal.ReplayedEvent);
+
+        EventJournal.PlayerCall seek = (EventJournal.PlayerCall) replayed.get(7);
+        assertEquals("seekTo", seek.method);
+        assertEquals("5000", seek.argument);
+        EventJournal.PlayerCall play = (EventJournal.PlayerCall) replayed.get(8);
+        assertEquals("play", play.method);
+        assertNull(play.argument);
+    }
+
+    @Test
+    public void testRingKeepsNewestRecords() throws IOException {
+        journal = new EventJournal(1024);
+        recordingBus.setEventJournal(journal);
+        for (int i = 0; i < 200; i++) {
+            recordingBus.post(new PlayerEvent.DurationChanged(i));
+        }
+        int count = journal.getRecordCount();
+        assertTrue(count > 0 && count < 200);
+
+        assertEquals(count, dumpAndReplay());
+        for (int i = 0; i < count; i++) {
+            assertEquals(200 - count + i, ((PlayerEvent.DurationChanged) replayed.get(i)).duration);
+        }
+    }
+
+    @Test
+    public void testClear() throws IOException {
+        recordingBus.post(new PlayerEvent.DurationChanged(1));
+        journal.clear();
+        assertEquals(0, journal.getRecordCount());
+        assertEquals(0, dumpAndReplay());
+    }
+
+    @Test(expected = IOException.class)
+    public void testReplayRejectsOtherData() throws IOException {
+        EventJournal.replay(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8}), new MessageBus(), false);
+    }
+}
@@ -0,0 +1,422 @@
+package com.kaltura.playkit;
+
+import android.os.Looper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class MessageBusTest {
+
+    enum TestType {
+        FIRST, SECOND, THIRD
+    }
+
+    // Same ordinals as TestType, to check that types of different enums don't share registry slots.
+    enum OtherType {
+        FIRST, SECOND
+    }
+
+    static class TestEvent implements PKEvent {
+        final Enum type;
+        final int value;
+
+        TestEvent(Enum type, int value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        @Override
+        public Enum eventType() {
+            return type;
+        }
+    }
+
+    // Appends "name:TYPE/value" to the shared log for every event it gets.
+    class RecordingListener implements PKEvent.Listener {
+        final String name;
+
+        RecordingListener(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void onEvent(PKEvent event) {
+            received.add(name + ":" + event.eventType() + "/" + ((TestEvent) event).value);
+        }
+    }
+
+    private MessageBus messageBus;
+    private List<String> received;
+
+    @Before
+    public void setUp() {
+        // Deliver main-lane events only when the test runs the looper.
+        ShadowLooper.pauseMainLooper();
+        messageBus = new MessageBus();
+        received = new ArrayList<>();
+    }
+
+    private void runMainLooper() {
+        ShadowLooper.runUiThreadTasks();
+    }
+
+    private void runOneLooperTask() {
+        Shadows.shadowOf(Looper.getMainLooper()).runOneTask();
+    }
+
+    private void assertReceived(String... expected) {
+        assertEquals(Arrays.asList(expected), received);
+        received.clear();
+    }
+
+    @Test
+    public void testListenersAreCalledInRegistrationOrder() {
+        messageBus.listen(new RecordingListener("a"), TestType.FIRST);
+        messageBus.listen(new RecordingListener("b"), TestType.FIRST, TestType.SECOND);
+        messageBus.listen(new RecordingListener("c"), TestType.FIRST);
+
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        messageBus.post(new TestEvent(TestType.SECOND, 2));
+        messageBus.post(new TestEvent(TestType.THIRD, 3));
+        assertReceived();
+
+        runMainLooper();
+        assertReceived("a:FIRST/1", "b:FIRST/1", "c:FIRST/1", "b:SECOND/2");
+    }
+
+    @Test
+    public void testListenAgainKeepsPosition() {
+        RecordingListener a = new RecordingListener("a");
+        messageBus.listen(a, TestType.FIRST);
+        messageBus.listen(new RecordingListener("b"), TestType.FIRST);
+        messageBus.listen(a, TestType.FIRST);
+
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        runMainLooper();
+        assertReceived("a:FIRST/1", "b:FIRST/1");
+    }
+
+    @Test
+    public void testRemove() {
+        RecordingListener a = new RecordingListener("a");
+        messageBus.listen(a, TestType.FIRST, TestType.SECOND);
+        messageBus.listen(new RecordingListener("b"), TestType.FIRST);
+        messageBus.remove(a, TestType.FIRST);
+
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        messageBus.post(new TestEvent(TestType.SECOND, 2));
+        runMainLooper();
+        assertReceived("b:FIRST/1", "a:SECOND/2");
+    }
+
+    @Test
+    public void testListenerRemovesOthersWhileDispatching() {
+        final RecordingListener b = new RecordingListener("b");
+        messageBus.listen(new RecordingListener("a") {
+            @Override
+            public void onEvent(PKEvent event) {
+                super.onEvent(event);
+                messageBus.remove(this, TestType.FIRST);
+                messageBus.remove(b, TestType.FIRST);
+            }
+        }, TestType.FIRST);
+        messageBus.listen(b, TestType.FIRST);
+
+        // The event being delivered still reaches everyone that was listening when delivery started.
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        runMainLooper();
+        assertReceived("a:FIRST/1", "b:FIRST/1");
+
+        messageBus.post(new TestEvent(TestType.FIRST, 2));
+        runMainLooper();
+        assertReceived();
+    }
+
+    @Test
+    public void testTypesOfDifferentEnumsDontCollide() {
+        messageBus.listen(new RecordingListener("a"), TestType.FIRST);
+        messageBus.listen(new RecordingListener("b"), OtherType.FIRST);
+
+        messageBus.post(new TestEvent(OtherType.FIRST, 1));
+        messageBus.post(new TestEvent(OtherType.SECOND, 2));
+        messageBus.post(new TestEvent(TestType.FIRST, 3));
+        runMainLooper();
+        assertReceived("b:FIRST/1", "a:FIRST/3");
+    }
+
+    @Test
+    public void testImmediateModeKeepsPostingOrder() {
+        RecordingListener a = new RecordingListener("a");
+        messageBus.listen(a, TestType.FIRST, TestType.SECOND);
+
+        messageBus.post(new TestEvent(TestType.SECOND, 1));
+        messageBus.post(new TestEvent(TestType.FIRST, 2));
+        messageBus.post(new TestEvent(TestType.SECOND, 3));
+
+        // One looper message per event.
+        runOneLooperTask();
+        assertReceived("a:SECOND/1");
+        runMainLooper();
+        assertReceived("a:FIRST/2", "a:SECOND/3");
+    }
+
+    @Test
+    public void testBatchedModeDeliversQueuedEventsTogether() {
+        messageBus.setDispatchMode(MessageBus.DispatchMode.BATCHED);
+        messageBus.listen(new RecordingListener("a") {
+            @Override
+            public void onEvent(PKEvent event) {
+                super.onEvent(event);
+                if (event.eventType() == TestType.FIRST) {
+                    messageBus.post(new TestEvent(TestType.SECOND, ((TestEvent) event).value * 10));
+                }
+            }
+        }, TestType.FIRST, TestType.SECOND);
+
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        messageBus.post(new TestEvent(TestType.FIRST, 2));
+
+        // Events posted by listeners during a batch go to the next one.
+        runOneLooperTask();
+        assertReceived("a:FIRST/1", "a:FIRST/2");
+        runOneLooperTask();
+        assertReceived("a:SECOND/10", "a:SECOND/20");
+    }
+
+    @Test
+    public void testCoalescing() {
+        messageBus.setCoalescing(TestType.FIRST, 500);
+        messageBus.listen(new RecordingListener("a"), TestType.FIRST);
+        messageBus.listen(new RecordingListener("b"), new MessageBus.ListenOptions().setEverySample(true), TestType.FIRST);
+        messageBus.listen(new RecordingListener("p"), new MessageBus.ListenOptions().setLane(MessageBus.Lane.POSTING), TestType.FIRST);
+
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        messageBus.post(new TestEvent(TestType.FIRST, 2));
+        messageBus.post(new TestEvent(TestType.FIRST, 3));
+        assertReceived("p:FIRST/1", "p:FIRST/2", "p:FIRST/3");
+
+        // After a quiet window the latest event goes out right away; every-sample listeners get them all.
+        runMainLooper();
+        assertReceived("a:FIRST/3", "b:FIRST/1", "b:FIRST/2", "b:FIRST/3");
+
+        messageBus.post(new TestEvent(TestType.FIRST, 4));
+        messageBus.post(new TestEvent(TestType.FIRST, 5));
+        assertReceived("p:FIRST/4", "p:FIRST/5");
+        runMainLooper();
+        assertReceived("b:FIRST/4", "b:FIRST/5");
+
+        // The next one waits for the end of the window.
+        ShadowLooper.idleMainLooper(500);
+        assertReceived("a:FIRST/5");
+    }
+
+    @Test
+    public void testCoalescingOff() {
+        messageBus.setCoalescing(TestType.FIRST, 500);
+        messageBus.setCoalescing(TestType.FIRST, 0);
+        messageBus.listen(new RecordingListener("a"), TestType.FIRST);
+
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        messageBus.post(new TestEvent(TestType.FIRST, 2));
+        runMainLooper();
+        assertReceived("a:FIRST/1", "a:FIRST/2");
+    }
+
+    @Test
+    public void testPostingLaneIsSynchronous() {
+        messageBus.listen(new RecordingListener("a"), TestType.FIRST);
+        messageBus.listen(new RecordingListener("p"), new MessageBus.ListenOptions().setLane(MessageBus.Lane.POSTING), TestType.FIRST);
+
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        assertReceived("p:FIRST/1");
+        runMainLooper();
+        assertReceived("a:FIRST/1");
+    }
+
+    @Test
+    public void testListenAgainChangesLane() {
+        RecordingListener a = new RecordingListener("a");
+        messageBus.listen(a, TestType.FIRST);
+        messageBus.listen(a, new MessageBus.ListenOptions().setLane(MessageBus.Lane.POSTING), TestType.FIRST);
+
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        assertReceived("a:FIRST/1");
+        runMainLooper();
+        assertReceived();
+    }
+
+    @Test
+    public void testStickyEventIsReplayedToLateListeners() {
+        messageBus.setSticky(TestType.FIRST);
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        messageBus.post(new TestEvent(TestType.FIRST, 2));
+        messageBus.post(new TestEvent(TestType.SECOND, 3));
+
+        messageBus.listen(new RecordingListener("p"), new MessageBus.ListenOptions().setLane(MessageBus.Lane.POSTING), TestType.FIRST);
+        assertReceived("p:FIRST/2");
+
+        messageBus.listen(new RecordingListener("a"), TestType.FIRST, TestType.SECOND);
+        assertReceived();
+        runMainLooper();
+        assertReceived("a:FIRST/2");
+    }
+
+    @Test
+    public void testClearStickyEvents() {
+        messageBus.setSticky(TestType.FIRST);
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        messageBus.clearStickyEvents();
+
+        messageBus.listen(new RecordingListener("a"), TestType.FIRST);
+        runMainLooper();
+        assertReceived();
+    }
+
+    @Test
+    public void testLiveEventAfterListenFollowsReplay() {
+        messageBus.setSticky(TestType.FIRST);
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+
+        messageBus.listen(new RecordingListener("a"), TestType.FIRST);
+        messageBus.post(new TestEvent(TestType.FIRST, 2));
+        runMainLooper();
+        assertReceived("a:FIRST/1", "a:FIRST/2");
+    }
+
+    @Test
+    public void testStickyEventIsNotDeliveredTwice() {
+        messageBus.setSticky(TestType.FIRST);
+        messageBus.listen(new RecordingListener("b"), TestType.FIRST);
+
+        // Queued before "a" subscribes, delivered to it after: that's the only copy it should get.
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        messageBus.listen(new RecordingListener("a"), TestType.FIRST);
+        runMainLooper();
+        assertReceived("b:FIRST/1", "a:FIRST/1");
+    }
+
+    @Test
+    public void testDropOldestMakesRoom() {
+        messageBus.setQueueCapacity(2);
+        messageBus.setOverflowPolicy(TestType.FIRST, MessageBus.OverflowPolicy.DROP_OLDEST);
+        messageBus.listen(new RecordingListener("a"), TestType.FIRST, TestType.SECOND);
+
+        messageBus.post(new TestEvent(TestType.FIRST, 1));
+        messageBus.post(new TestEvent(TestType.FIRST, 2));
+        messageBus.post(new TestEvent(TestType.FIRST, 3));
+        messageBus.post(new TestEvent(TestType.SECOND, 4));
+        assertEquals(2, messageBus.getDroppedEventCount(TestType.FIRST));
+        assertEquals(0, messageBus.getDroppedEventCount(TestType.SECOND));
+        assertEquals(2, messageBus.getDroppedEventCount());
+
+        runMainLooper();
+        assertReceived("a:FIRST/3", "a:SECOND/4");
+    }
+
+    @Test
+    public void testNeverDropTypesGrowPastCapacity() {
+        messageBus.setQueueCapacity(2);
+        messageBus.setOverflowPolicy(TestType.FIRST, MessageBus.OverflowPolicy.DROP_OLDEST);
+        messageBus.listen(new RecordingListener("a"), TestType.FIRST, TestType.SECOND);
+
+        messageBus.post(new TestEvent(TestType.SECOND, 1));
+        messageBus.post(new TestEvent(TestType.SECOND, 2));
+        messageBus.post(new TestEvent(TestType.SECOND, 3));
+        assertEquals(0, messageBus.getDroppedEventCount());
+
+        // Nothing older can be dropped, so the new droppable event is.
+        messageBus.post(new TestEvent(TestType.FIRST, 4));
+        assertEquals(1, messageBus.getDroppedEventCount(TestType.FIRST));
+
+        runMainLooper();
+        assertReceived("a:SECOND/1", "a:SECOND/2", "a:SECOND/3");
+
+        // Once drained, there's room again.
+        messageBus.post(new TestEvent(TestType.FIRST, 5));
+        runMainLooper();
+        assertReceived("a:FIRST/5");
+    }
+
+    private static PlayerEvent.PlaybackInfoUpdated obtainPlaybackInfo(long videoBitrate) {
+        return PlayerEvent.PlaybackInfoUpdated.obtain(null, videoBitrate, 0, 0, 0, 0, false);
+    }
+
+    // Empties the pool, so the next obtain() returns the last released event. Release the result when done.
+    private static List<PlayerEvent.PlaybackInfoUpdated> drainPool() {
+        List<PlayerEvent.PlaybackInfoUpdated> drained = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            drained.add(obtainPlaybackInfo(0));
+        }
+        return drained;
+    }
+
+    private static void releaseAll(List<PlayerEvent.PlaybackInfoUpdated> events) {
+        for (PlayerEvent.PlaybackInfoUpdated event : events) {
+            event.release();
+        }
+    }
+
+    @Test
+    public void testPooledEventIsRecycledAfterLastDelivery() {
+        final List<String> bitrates = new ArrayList<>();
+        PKEvent.Listener listener = new PKEvent.Listener() {
+            @Override
+            public void onEvent(PKEvent event) {
+                bitrates.add(String.valueOf(((PlayerEvent.PlaybackInfoUpdated) event).playbackInfo.getVideoBitrate()));
+            }
+        };
+        messageBus.listen(listener, PlayerEvent.Type.PLAYBACK_INFO_UPDATED);
+        List<PlayerEvent.PlaybackInfoUpdated> drained = drainPool();
+
+        PlayerEvent.PlaybackInfoUpdated first = obtainPlaybackInfo(1000);
+        messageBus.post(first);
+
+        // The queue still holds the first one, so it can't be handed out again.
+        PlayerEvent.PlaybackInfoUpdated second = obtainPlaybackInfo(2000);
+        assertNotSame(first, second);
+        messageBus.post(second);
+
+        runMainLooper();
+        assertEquals(Arrays.asList("1000", "2000"), bitrates);
+        // Both went back to the pool once delivered, the last one on top.
+        assertSame(second, obtainPlaybackInfo(3000));
+        assertSame(first, obtainPlaybackInfo(4000));
+
+        releaseAll(drained);
+    }
+
+    @Test
+    public void testStickyPooledEventIsHeldUntilReplaced() {
+        messageBus.setSticky(PlayerEvent.Type.PLAYBACK_INFO_UPDATED);
+        List<PlayerEvent.PlaybackInfoUpdated> drained = drainPool();
+
+        PlayerEvent.PlaybackInfoUpdated first = obtainPlaybackInfo(1000);
+        messageBus.post(first);
+        PlayerEvent.PlaybackInfoUpdated second = obtainPlaybackInfo(2000);
+        assertNotSame(first, second);
+
+        messageBus.post(second);
+        assertSame(first, obtainPlaybackInfo(3000));
+
+        messageBus.clearStickyEvents();
+        assertSame(second, obtainPlaybackInfo(4000));
+
+        releaseAll(drained);
+    }
+}
@@ -0,0 +1,119 @@
+package com.kaltura.playkit;
+
+import android.graphics.Bitmap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class ThumbnailPreviewLoaderTest {
+
+    private static final long INTERVAL_MS = 5000;
+
+    // Accepts connections but never answers, so every load stays pending until it's cancelled.
+    private ServerSocket server;
+    private final List<Long> requestedPositions = new ArrayList<>();
+    private ThumbnailPreviewLoader loader;
+
+    private final ThumbnailPreviewLoader.Listener listener = new ThumbnailPreviewLoader.Listener() {
+        @Override
+        public void onThumbnailLoaded(long positionMs, Bitmap thumbnail) {
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        server = new ServerSocket(0, 50);
+        loader = new ThumbnailPreviewLoader(new ThumbnailPreviewLoader.UrlProvider() {
+            @Override
+            public String getThumbnailUrl(long positionMs) {
+                requestedPositions.add(positionMs);
+                return "http://127.0.0.1:" + server.getLocalPort() + "/thumbnail/" + positionMs;
+            }
+        }, INTERVAL_MS, ThumbnailPreviewLoader.DEFAULT_CACHE_BYTES);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        loader.release();
+        server.close();
+    }
+
+    private void assertRequested(Long... expected) {
+        assertEquals(Arrays.asList(expected), requestedPositions);
+        requestedPositions.clear();
+    }
+
+    @Test
+    public void testPositionsAreSnappedToInterval() {
+        loader.requestThumbnail(12300, listener);
+        assertRequested(10000L);
+
+        // Same frame, already on its way.
+        loader.requestThumbnail(14999, listener);
+        loader.requestThumbnail(10000, listener);
+        assertRequested();
+        assertNull(loader.getCachedThumbnail(12300));
+
+        loader.requestThumbnail(-300, listener);
+        assertRequested(0L);
+    }
+
+    @Test
+    public void testRequestForAnotherFrameCancelsThePreviousOne() {
+        loader.requestThumbnail(12300, listener);
+        loader.requestThumbnail(31000, listener);
+        assertRequested(10000L, 30000L);
+
+        // The first one was dropped, so it's loaded again.
+        loader.requestThumbnail(12300, listener);
+        assertRequested(10000L);
+    }
+
+    @Test
+    public void testPrefetchAround() {
+        loader.prefetchAround(21000, 1);
+        assertRequested(20000L, 25000L, 15000L);
+
+        loader.prefetchAround(24000, 1);
+        assertRequested();
+
+        // Moving away cancels the prefetches outside the new window, but not the requested frame.
+        loader.requestThumbnail(52000, listener);
+        assertRequested(50000L);
+        loader.prefetchAround(3000, 1);
+        assertRequested(0L, 5000L);
+
+        loader.prefetchAround(21000, 1);
+        assertRequested(20000L, 25000L, 15000L);
+        loader.requestThumbnail(52000, listener);
+        assertRequested();
+    }
+
+    @Test
+    public void testCancelAll() {
+        loader.prefetchAround(21000, 1);
+        loader.requestThumbnail(52000, listener);
+        assertRequested(20000L, 25000L, 15000L, 50000L);
+
+        loader.cancelAll();
+        loader.requestThumbnail(52000, listener);
+        loader.prefetchAround(21000, 1);
+        assertRequested(50000L, 20000L, 25000L, 15000L);
+    }
+}
@@ -0,0 +1,100 @@
+package com.kaltura.playkit.player;
+
+import com.google.android.exoplayer2.ExoPlayer;
+import com.google.android.exoplayer2.SimpleExoPlayer;
+import com.kaltura.playkit.PlayerEvent;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class ExoPlayerWrapperTest {
+
+    private ExoPlayerWrapper wrapper;
+    private SimpleExoPlayer exoPlayer;
+    private final List<PlayerEvent.Type> seekEvents = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        // Keeps the throttled scrub seeks from running on their own.
+        ShadowLooper.pauseMainLooper();
+        wrapper = new ExoPlayerWrapper(RuntimeEnvironment.application);
+        wrapper.setEventListener(new PlayerController.EventListener() {
+            @Override
+            public void onEvent(PlayerEvent.Type event) {
+                if (event == PlayerEvent.Type.SEEKING || event == PlayerEvent.Type.SEEKED) {
+                    seekEvents.add(event);
+                }
+            }
+        });
+
+        // Stands in for the player that load() would create.
+        exoPlayer = mock(SimpleExoPlayer.class);
+        Field playerField = ExoPlayerWrapper.class.getDeclaredField("player");
+        playerField.setAccessible(true);
+        playerField.set(wrapper, exoPlayer);
+    }
+
+    private void changePlaybackState(int playbackState) {
+        when(exoPlayer.getPlaybackState()).thenReturn(playbackState);
+        wrapper.onPlayerStateChanged(true, playbackState);
+    }
+
+    private void assertSeekEvents(PlayerEvent.Type... expected) {
+        assertEquals(Arrays.asList(expected), seekEvents);
+        seekEvents.clear();
+    }
+
+    @Test
+    public void testSeekThatCompletesWhileScrubbing() {
+        wrapper.seekTo(10000);
+        changePlaybackState(ExoPlayer.STATE_BUFFERING);
+        assertSeekEvents(PlayerEvent.Type.SEEKING);
+
+        // The user grabs the bar again before the seek is done, then lets go without moving it.
+        wrapper.setScrubbing(true);
+        changePlaybackState(ExoPlayer.STATE_READY);
+        assertSeekEvents();
+        wrapper.setScrubbing(false);
+        assertSeekEvents(PlayerEvent.Type.SEEKED);
+
+        // The next gesture starts a seek of its own.
+        wrapper.setScrubbing(true);
+        wrapper.seekTo(20000);
+        assertSeekEvents(PlayerEvent.Type.SEEKING);
+        wrapper.setScrubbing(false);
+        verify(exoPlayer).seekTo(20000);
+        changePlaybackState(ExoPlayer.STATE_BUFFERING);
+        changePlaybackState(ExoPlayer.STATE_READY);
+        assertSeekEvents(PlayerEvent.Type.SEEKED);
+    }
+
+    @Test
+    public void testSeekThatIsStillBufferingWhenScrubbingEnds() {
+        wrapper.seekTo(10000);
+        changePlaybackState(ExoPlayer.STATE_BUFFERING);
+        wrapper.setScrubbing(true);
+        wrapper.setScrubbing(false);
+        assertSeekEvents(PlayerEvent.Type.SEEKING);
+
+        changePlaybackState(ExoPlayer.STATE_READY);
+        assertSeekEvents(PlayerEvent.Type.SEEKED);
+    }
+}
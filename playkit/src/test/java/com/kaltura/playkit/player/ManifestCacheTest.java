@@ -0,0 +1,161 @@
+package com.kaltura.playkit.player;
+
+import android.net.Uri;
+import android.os.SystemClock;
+
+import com.google.android.exoplayer2.source.dash.manifest.DashManifest;
+import com.google.android.exoplayer2.upstream.DataSpec;
+import com.google.android.exoplayer2.upstream.HttpDataSource;
+import com.kaltura.playkit.PKMediaFormat;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE)
+public class ManifestCacheTest {
+
+    private static final String STATIC_MPD =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<MPD xmlns=\"urn:mpeg:dash:schema:mpd:2011\" type=\"static\" mediaPresentationDuration=\"PT10S\" minBufferTime=\"PT2S\">\n" +
+            "  <Period>\n" +
+            "    <AdaptationSet mimeType=\"video/mp4\">\n" +
+            "      <Representation id=\"1\" bandwidth=\"500000\" codecs=\"avc1.42c01e\" width=\"640\" height=\"360\">\n" +
+            "        <BaseURL>video.mp4</BaseURL>\n" +
+            "      </Representation>\n" +
+            "    </AdaptationSet>\n" +
+            "  </Period>\n" +
+            "</MPD>\n";
+
+    private static final String LIVE_MPD = STATIC_MPD.replace("type=\"static\" mediaPresentationDuration=\"PT10S\"",
+            "type=\"dynamic\" availabilityStartTime=\"2017-01-01T00:00:00Z\" minimumUpdatePeriod=\"PT2S\"");
+
+    private ManifestCache manifestCache;
+
+    @Before
+    public void setUp() {
+        manifestCache = ManifestCache.getInstance();
+        manifestCache.clear();
+    }
+
+    private static HttpDataSource.Factory factoryOf(final String manifest) {
+        HttpDataSource.Factory factory = mock(HttpDataSource.Factory.class);
+        when(factory.createDataSource()).thenAnswer(new Answer<HttpDataSource>() {
+            @Override
+            public HttpDataSource answer(InvocationOnMock invocation) throws Throwable {
+                return dataSourceOf(manifest.getBytes(Charset.forName("UTF-8")));
+            }
+        });
+        return factory;
+    }
+
+    private static HttpDataSource dataSourceOf(byte[] data) throws IOException {
+        final ByteArrayInputStream in = new ByteArrayInputStream(data);
+        HttpDataSource dataSource = mock(HttpDataSource.class);
+        when(dataSource.open(any(DataSpec.class))).thenReturn((long) data.length);
+        when(dataSource.read(any(byte[].class), anyInt(), anyInt())).thenAnswer(new Answer<Integer>() {
+            @Override
+            public Integer answer(InvocationOnMock invocation) throws Throwable {
+                Object[] arguments = invocation.getArguments();
+                // -1 at the end, same as C.RESULT_END_OF_INPUT.
+                return in.read((byte[]) arguments[0], (Integer) arguments[1], (Integer) arguments[2]);
+            }
+        });
+        return dataSource;
+    }
+
+    private static Uri manifestUrl(int index) {
+        return Uri.parse("http://example.com/entry" + index + "/manifest.mpd?ks=abc");
+    }
+
+    // Prefetches run on a background thread, one at a time.
+    private DashManifest prefetchAndWait(Uri url, HttpDataSource.Factory factory) throws InterruptedException {
+        manifestCache.prefetch(url, PKMediaFormat.dash, factory);
+        for (int i = 0; i < 500; i++) {
+            DashManifest manifest = manifestCache.getDashManifest(url);
+            if (manifest != null) {
+                return manifest;
+            }
+            Thread.sleep(10);
+        }
+        return null;
+    }
+
+    @Test
+    public void testPlaySessionIdIsNotPartOfTheKey() throws InterruptedException {
+        HttpDataSource.Factory factory = factoryOf(STATIC_MPD);
+        assertNotNull(prefetchAndWait(Uri.parse("http://example.com/a.mpd?playSessionId=1&ks=abc"), factory));
+
+        assertNotNull(manifestCache.getDashManifest(Uri.parse("http://example.com/a.mpd?playSessionId=2&ks=abc")));
+        assertNotNull(manifestCache.getDashManifest(Uri.parse("http://example.com/a.mpd?ks=abc")));
+        assertNull(manifestCache.getDashManifest(Uri.parse("http://example.com/a.mpd?playSessionId=1&ks=def")));
+
+        // Already cached under the same key, so it's not fetched again.
+        manifestCache.prefetch(Uri.parse("http://example.com/a.mpd?playSessionId=3&ks=abc"), PKMediaFormat.dash, factory);
+        verify(factory, times(1)).createDataSource();
+    }
+
+    @Test
+    public void testEntriesExpire() throws InterruptedException {
+        Uri url = manifestUrl(0);
+        assertNotNull(prefetchAndWait(url, factoryOf(STATIC_MPD)));
+
+        SystemClock.sleep(ManifestCache.TTL_MS - 1000);
+        assertNotNull(manifestCache.getDashManifest(url));
+        SystemClock.sleep(1000);
+        assertNull(manifestCache.getDashManifest(url));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws InterruptedException {
+        HttpDataSource.Factory factory = factoryOf(STATIC_MPD);
+        for (int i = 0; i < ManifestCache.MAX_ENTRIES; i++) {
+            assertNotNull(prefetchAndWait(manifestUrl(i), factory));
+        }
+
+        // Touch the oldest one, so the second is evicted instead.
+        assertNotNull(manifestCache.getDashManifest(manifestUrl(0)));
+        assertNotNull(prefetchAndWait(manifestUrl(ManifestCache.MAX_ENTRIES), factory));
+
+        assertNotNull(manifestCache.getDashManifest(manifestUrl(0)));
+        assertNull(manifestCache.getDashManifest(manifestUrl(1)));
+        for (int i = 2; i <= ManifestCache.MAX_ENTRIES; i++) {
+            assertNotNull(manifestCache.getDashManifest(manifestUrl(i)));
+        }
+    }
+
+    @Test
+    public void testLiveManifestIsNotCached() throws InterruptedException {
+        manifestCache.prefetch(manifestUrl(0), PKMediaFormat.dash, factoryOf(LIVE_MPD));
+        // Queued behind the live one.
+        assertNotNull(prefetchAndWait(manifestUrl(1), factoryOf(STATIC_MPD)));
+        assertNull(manifestCache.getDashManifest(manifestUrl(0)));
+    }
+
+    @Test
+    public void testOtherFormatsAreNotFetched() {
+        HttpDataSource.Factory factory = factoryOf(STATIC_MPD);
+        manifestCache.prefetch(Uri.parse("http://example.com/a.mp4"), PKMediaFormat.mp4, factory);
+        verify(factory, never()).createDataSource();
+    }
+}